@@ -1,11 +1,28 @@
 package cbin;
 
 import cbin.core.BinaryTransformer;
-import cbin.io.BinaryGraphFiles;
+import cbin.core.GraphPacker;
+import cbin.core.IdHashBuilder;
+import cbin.core.SegmentStore;
+import cbin.io.GraphAggregates;
+import cbin.io.GraphReader;
+import cbin.io.GraphStats;
+import cbin.io.OrdinalCursor;
+import cbin.io.PackedGraph;
 import cbin.io.PgdfReader;
+import cbin.io.PostingJoin;
+import cbin.io.SegmentedGraph;
 
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 
 public class Main {
@@ -23,17 +40,37 @@ public class Main {
                 System.out.println("data"+ nodes.toString()+ edges.toString()+ out.toString());
                 long t0 = System.nanoTime();
 
+                int threads = parseThreads(args, 4);
+                boolean singlePass = hasFlag(args, 4, "--single-pass");
                 BinaryTransformer transformer = new BinaryTransformer(out);
 
-                //Nodes streaming
-                PgdfReader.readNodes(nodes, transformer::acceptNodeRow);
+                //Nodes streaming (en paralelo por chunks si --threads > 1)
+                if (threads > 1) {
+                    transformer.ingestNodesParallel(nodes, threads);
+                } else {
+                    transformer.startNodes();
+                    PgdfReader.scan(nodes, transformer::acceptNode);
+                }
                 transformer.finishNodesPass1(); // pools ids + props temporales
 
                 // Construir nodes.id.lex 
                 transformer.buildNodesIdLex();
 
-                // Primera pasada de aristas para recolectar labels de edges
-                PgdfReader.readEdges(edges, transformer::collectEdgeLabelOnly);
+                if (singlePass) {
+                    // Única pasada de aristas: labels provisionales, se remapean tras los diccionarios
+                    if (threads > 1) {
+                        transformer.ingestEdgesSinglePassParallel(edges, threads);
+                    } else {
+                        transformer.startEdgesSinglePass();
+                        PgdfReader.scan(edges, transformer::acceptEdge);
+                    }
+                    transformer.finishEdges();
+                } else if (threads > 1) {
+                    // Primera pasada de aristas para recolectar labels de edges
+                    transformer.collectEdgeLabelsParallel(edges, threads);
+                } else {
+                    PgdfReader.scan(edges, transformer::collectEdgeLabel);
+                }
 
                 // Construir diccionarios labels de nodos+aristas; propnames; propvals
                 transformer.buildDictionaries();
@@ -41,23 +78,63 @@ public class Main {
                 // Re-escribir nodes.rec con IDs definitivos a partir de props temporales
                 transformer.materializeNodesRec();
 
-                // Segunda pasada de aristas: escribir edges.rec/off + índices provisionales
-                PgdfReader.readEdges(edges, transformer::acceptEdgeRow);
-                transformer.finishEdges();
+                if (singlePass) {
+                    // edges.rec/off definitivos con los ids de label del diccionario
+                    transformer.remapEdgeLabels();
+                } else {
+                    // Segunda pasada de aristas: escribir edges.rec/off + índices provisionales
+                    if (threads > 1) {
+                        transformer.ingestEdgesParallel(edges, threads);
+                    } else {
+                        transformer.startEdges();
+                        PgdfReader.scan(edges, transformer::acceptEdge);
+                    }
+                    transformer.finishEdges();
+                }
 
                 // Construir índices finales posting lists + directorios
                 transformer.buildIndexes();
+                if (hasFlag(args, 4, "--mph")) transformer.buildIdHashes();
+                if (!hasFlag(args, 4, "--plain-ids")) transformer.frontCodeIdPools();
+                transformer.writeStats();
 
                 long t1 = System.nanoTime();
+                GraphStats st = GraphReader.open(out).stats();
+                System.out.printf(Locale.ROOT, "nodes=%d edges=%d bytes=%d%n", st.nodeCount(), st.edgeCount(), st.totalSize());
                 System.out.printf(Locale.ROOT, "Ingesta terminada en %.3f ms%n", (t1 - t0) / 1e6);
             }
+            case "build-mph" -> {
+                // *.id.mph para un directorio ya ingestado
+                if (args.length < 2) usage();
+                Path outDir = SegmentedGraph.singleSegment(Paths.get(args[1]));
+                for (String pool : new String[]{"nodes.id", "edges.id"}) {
+                    IdHashBuilder.build(GraphReader.Dict.open(outDir, pool), outDir.resolve(pool + ".mph"));
+                }
+            }
+            case "pack" -> {
+                // outDir -> contenedor de un solo archivo; las consultas aceptan el .cbin en lugar del directorio
+                if (args.length < 3) usage();
+                Path outDir = Paths.get(args[1]);
+                Path file = Paths.get(args[2]);
+                long t0 = System.nanoTime();
+                GraphPacker.pack(outDir, file);
+                long t1 = System.nanoTime();
+                System.out.printf(Locale.ROOT, "Empaquetado en %.3f ms%n", (t1 - t0) / 1e6);
+            }
+            case "verify-pack" -> {
+                if (args.length < 2) usage();
+                PackedGraph g = PackedGraph.open(Paths.get(args[1]));
+                g.verify();
+                System.out.println("sections=" + g.sections().size() + " nodes=" + g.nodeCount() + " edges=" + g.edgeCount() + " OK");
+            }
             case "q-node" -> {
                 if (args.length < 3) usage();
                 Path outDir = Paths.get(args[1]);
                 String nodeId = args[2];
 
+                GraphReader reader = openReader(outDir);
                 long t0 = System.nanoTime();
-                var res = BinaryGraphFiles.queryNodeById(outDir, nodeId);
+                var res = reader.node(nodeId);
                 long t1 = System.nanoTime();
                 System.out.printf(Locale.ROOT, "Ingesta terminada en %.3f ms%n", (t1 - t0) / 1e6);
                 if (res == null) {
@@ -67,18 +144,423 @@ public class Main {
                     System.out.println("props=" + res.props);
                 }
             }
+            case "q-prop" -> {
+                if (args.length < 4) usage();
+                Path outDir = Paths.get(args[1]);
+                String name = args[2];
+                String value = args[3];
+
+                GraphReader reader = openReader(outDir);
+                long t0 = System.nanoTime();
+                List<Integer> ords = new ArrayList<>();
+                reader.forEachNodeByProperty(name, value, ords::add);
+                long t1 = System.nanoTime();
+                for (int ord : ords) System.out.println(reader.nodeId(ord));
+                System.out.println("count=" + ords.size());
+                System.out.printf(Locale.ROOT, "Consulta terminada en %.3f ms%n", (t1 - t0) / 1e6);
+            }
+            case "q-label" -> {
+                if (args.length < 3) usage();
+                Path outDir = Paths.get(args[1]);
+                String label = args[2];
+                boolean countOnly = hasFlag(args, 3, "--count");
+                String offset = flagValue(args, 3, "--offset"), limit = flagValue(args, 3, "--limit");
+
+                GraphReader reader = openReader(outDir);
+                long t0 = System.nanoTime();
+                int count;
+                if (countOnly) {
+                    count = reader.edgeCountByLabel(label);
+                } else {
+                    var out = stdoutBuffered();
+                    count = reader.forEachEdgeIdByLabel(label,
+                            offset == null ? 0 : Integer.parseInt(offset),
+                            limit == null ? Integer.MAX_VALUE : Integer.parseInt(limit),
+                            out::println);
+                    out.flush();
+                }
+                long t1 = System.nanoTime();
+                System.out.println("count=" + count);
+                System.out.printf(Locale.ROOT, "Consulta terminada en %.3f ms%n", (t1 - t0) / 1e6);
+            }
+            case "q-src", "q-dst" -> {
+                if (args.length < 3) usage();
+                Path outDir = Paths.get(args[1]);
+                String label = args[2];
+                boolean countOnly = hasFlag(args, 3, "--count");
+                boolean src = cmd.equals("q-src");
+
+                GraphReader reader = openReader(outDir);
+                long t0 = System.nanoTime();
+                int count;
+                if (countOnly) {
+                    count = (src ? reader.sourceNodesByLabel(label) : reader.destinationNodesByLabel(label)).size();
+                } else {
+                    var out = stdoutBuffered();
+                    count = src ? reader.forEachSourceNodeByLabel(label, out::println)
+                                : reader.forEachDestinationNodeByLabel(label, out::println);
+                    out.flush();
+                }
+                long t1 = System.nanoTime();
+                System.out.println("count=" + count);
+                System.out.printf(Locale.ROOT, "Consulta terminada en %.3f ms%n", (t1 - t0) / 1e6);
+            }
+            case "q-nbr" -> {
+                if (args.length < 3) usage();
+                Path outDir = Paths.get(args[1]);
+                String nodeId = args[2];
+                boolean in = hasFlag(args, 3, "--in");
+                String label = flagValue(args, 3, "--label");
+
+                GraphReader reader = openReader(outDir);
+                long t0 = System.nanoTime();
+                List<Integer> nbrs = new ArrayList<>();
+                int ord = reader.nodeOrdinal(nodeId);
+                if (ord >= 0) {
+                    if (in) reader.forEachInNeighbor(ord, label, nbrs::add);
+                    else reader.forEachOutNeighbor(ord, label, nbrs::add);
+                }
+                long t1 = System.nanoTime();
+                if (ord < 0) System.out.println("Node not found");
+                for (int n : nbrs) System.out.println(reader.nodeId(n));
+                System.out.println("count=" + nbrs.size());
+                System.out.printf(Locale.ROOT, "Consulta terminada en %.3f ms%n", (t1 - t0) / 1e6);
+            }
+            case "q-scan" -> {
+                // recorre solo la columna de la propiedad: todos los valores, o los nodos con ese valor
+                if (args.length < 3) usage();
+                Path outDir = Paths.get(args[1]);
+                String name = args[2];
+                String value = args.length > 3 && !args[3].startsWith("--") ? args[3] : null;
+                boolean countOnly = hasFlag(args, 3, "--count");
+
+                GraphReader reader = openReader(outDir);
+                long t0 = System.nanoTime();
+                List<int[]> rows = new ArrayList<>();
+                int count;
+                if (value != null) {
+                    count = reader.scanNodesByProperty(name, value, countOnly ? o -> { } : o -> rows.add(new int[]{o, -1}));
+                } else {
+                    var col = reader.column(name);
+                    count = col == null ? 0 : countOnly ? col.count() : col.forEach((o, v) -> rows.add(new int[]{o, v}));
+                }
+                long t1 = System.nanoTime();
+                for (int[] r : rows) System.out.println(reader.nodeId(r[0]) + (r[1] < 0 ? "" : " " + reader.propValues().get(r[1])));
+                System.out.println("count=" + count);
+                System.out.printf(Locale.ROOT, "Consulta terminada en %.3f ms%n", (t1 - t0) / 1e6);
+            }
+            case "q-range" -> {
+                if (args.length < 5) usage();
+                Path outDir = Paths.get(args[1]);
+                String name = args[2];
+                long lo = Long.parseLong(args[3]), hi = Long.parseLong(args[4]);
+                boolean countOnly = hasFlag(args, 5, "--count");
+
+                GraphReader reader = openReader(outDir);
+                long t0 = System.nanoTime();
+                var col = reader.numericProperty(name);
+                if (col == null) {
+                    System.err.println(name + ": propiedad no numérica o inexistente");
+                    System.exit(1);
+                }
+                int count;
+                List<Integer> ords = new ArrayList<>();
+                if (countOnly) count = col.countInRange(lo, hi);
+                else count = col.forEachInRange(lo, hi, ords::add);
+                long t1 = System.nanoTime();
+                for (int ord : ords) System.out.println(reader.nodeId(ord) + " " + col.get(ord));
+                System.out.println("count=" + count);
+                System.out.printf(Locale.ROOT, "Consulta terminada en %.3f ms%n", (t1 - t0) / 1e6);
+            }
+            case "q-match" -> {
+                if (args.length < 3) usage();
+                Path outDir = Paths.get(args[1]);
+                boolean countOnly = hasFlag(args, 2, "--count");
+
+                GraphReader reader = openReader(outDir);
+                long t0 = System.nanoTime();
+                OrdinalCursor match = matchFilter(reader, args, 2);
+                if (match == null) usage();
+                int count;
+                if (countOnly) {
+                    count = 0;
+                    while (match.hasNext()) { match.nextInt(); count++; }
+                } else {
+                    var out = stdoutBuffered();
+                    count = reader.nodeIds().forEach(match, out::println);
+                    out.flush();
+                }
+                long t1 = System.nanoTime();
+                System.out.println("count=" + count);
+                System.out.printf(Locale.ROOT, "Consulta terminada en %.3f ms%n", (t1 - t0) / 1e6);
+            }
+            case "q-agg" -> {
+                // nodes label | nodes prop <name> | edges label; filtro opcional con los predicados de q-match
+                if (args.length < 4) usage();
+                Path outDir = Paths.get(args[1]);
+                boolean byProp = args[3].equals("prop");
+                if (byProp && args.length < 5) usage();
+                int from = byProp ? 5 : 4;
+                String k = flagValue(args, from, "--top");
+                int top = k == null ? 0 : Integer.parseInt(k);
+
+                GraphReader reader = openReader(outDir);
+                GraphAggregates agg = new GraphAggregates(reader, parseThreads(args, from));
+                long t0 = System.nanoTime();
+                OrdinalCursor filter = matchFilter(reader, args, from);
+                List<GraphAggregates.Group> groups = switch (args[2] + " " + args[3]) {
+                    case "nodes label" -> agg.nodesByLabel(filter, top);
+                    case "nodes prop" -> agg.nodesByProperty(args[4], filter, top);
+                    case "edges label" -> {
+                        if (filter != null) usage();            // los filtros son de nodos
+                        yield agg.edgesByLabel(top);
+                    }
+                    default -> null;
+                };
+                if (groups == null) usage();
+                long t1 = System.nanoTime();
+                for (GraphAggregates.Group g : groups) System.out.println(g.key + "\t" + g.count);
+                System.out.println("groups=" + groups.size());
+                System.out.printf(Locale.ROOT, "Consulta terminada en %.3f ms%n", (t1 - t0) / 1e6);
+            }
+            case "stats" -> {
+                // graph.stats del ingest: conteos, NDV / heavy hitters, histogramas de grado, tamaños
+                if (args.length < 2) usage();
+                GraphReader reader = openReader(Paths.get(args[1]));
+                GraphStats st = reader.stats();
+                if (st == null) {
+                    System.err.println(args[1] + ": sin graph.stats (volver a ingestar o compactar)");
+                    System.exit(1);
+                }
+                System.out.println("nodes=" + st.nodeCount() + " edges=" + st.edgeCount());
+                for (int l = 0; l < reader.labels().size(); l++) {
+                    int n = st.nodesWithLabel(l), e = st.edgesWithLabel(l);
+                    if (n > 0 || e > 0) System.out.println("label\t" + reader.labels().get(l) + "\tnodes=" + n + "\tedges=" + e);
+                }
+                for (int pn = 0; pn < reader.propNames().size(); pn++) {
+                    GraphStats.Property p = st.property(pn);
+                    if (p == null) continue;
+                    StringBuilder hh = new StringBuilder();
+                    for (int i = 0; i < p.heavyValueIds.length; i++) {
+                        hh.append(i == 0 ? "" : ",").append(reader.propValues().get(p.heavyValueIds[i])).append('=').append(p.heavyCounts[i]);
+                    }
+                    System.out.println("prop\t" + reader.propNames().get(pn) + "\tnodes=" + p.nodes + "\tndv=" + p.ndv + "\ttop=" + hh);
+                }
+                printDegrees("out", st.outDegreeHistogram(), st.maxOutDegree());
+                printDegrees("in", st.inDegreeHistogram(), st.maxInDegree());
+                st.fileSizes().forEach((name, size) -> System.out.println("file\t" + name + "\t" + size));
+                System.out.println("bytes=" + st.totalSize());
+            }
+            case "ingest-delta" -> {
+                // delta sobre un store (el outDir de un ingest o un store ya segmentado); "-" = sin archivo
+                if (args.length < 4) usage();
+                Path store = Paths.get(args[1]);
+                Path nodes = optionalPath(args[2]), edges = optionalPath(args[3]);
+                String delNodes = flagValue(args, 4, "--delete-nodes"), delEdges = flagValue(args, 4, "--delete-edges");
+
+                long t0 = System.nanoTime();
+                Path seg = new SegmentStore(store).ingestDelta(nodes, edges,
+                        delNodes == null ? null : Paths.get(delNodes), delEdges == null ? null : Paths.get(delEdges));
+                long t1 = System.nanoTime();
+                System.out.println("segment=" + seg.getFileName());
+                System.out.printf(Locale.ROOT, "Ingesta terminada en %.3f ms%n", (t1 - t0) / 1e6);
+            }
+            case "compact" -> {
+                if (args.length < 2) usage();
+                Path store = Paths.get(args[1]);
+                long t0 = System.nanoTime();
+                new SegmentStore(store).compact();
+                long t1 = System.nanoTime();
+                System.out.println("segments=" + SegmentedGraph.manifest(store));
+                System.out.printf(Locale.ROOT, "Compactación terminada en %.3f ms%n", (t1 - t0) / 1e6);
+            }
+            case "q-store" -> {
+                if (args.length < 4) usage();
+                Path store = Paths.get(args[1]);
+                SegmentedGraph g = SegmentedGraph.open(store);
+                long t0 = System.nanoTime();
+                List<String> ids = new ArrayList<>();
+                switch (args[2]) {
+                    case "node" -> {
+                        var res = g.node(args[3]);
+                        if (res == null) {
+                            System.out.println("Node not found");
+                        } else {
+                            System.out.println("label=" + res.label);
+                            System.out.println("props=" + res.props);
+                        }
+                    }
+                    case "prop" -> {
+                        if (args.length < 5) usage();
+                        g.forEachNodeByProperty(args[3], args[4], ids::add);
+                    }
+                    case "label" -> g.forEachEdgeIdByLabel(args[3], ids::add);
+                    case "nbr" -> {
+                        String label = flagValue(args, 4, "--label");
+                        if (hasFlag(args, 4, "--in")) g.forEachInNeighbor(args[3], label, ids::add);
+                        else g.forEachOutNeighbor(args[3], label, ids::add);
+                    }
+                    default -> usage();
+                }
+                long t1 = System.nanoTime();
+                if (!args[2].equals("node")) {
+                    for (String id : ids) System.out.println(id);
+                    System.out.println("count=" + ids.size());
+                }
+                System.out.printf(Locale.ROOT, "Consulta terminada en %.3f ms%n", (t1 - t0) / 1e6);
+            }
             default -> usage();
         }
     }
 
+    /** GraphReader del outDir / .cbin, o del único segmento si es un store compactado. */
+    private static GraphReader openReader(Path outDir) throws IOException {
+        return GraphReader.open(SegmentedGraph.singleSegment(outDir));
+    }
+
+    /** stdout con buffer de 64 KB en UTF-8 para listados largos; flush explícito al terminar. */
+    private static PrintStream stdoutBuffered() {
+        return new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16), false, StandardCharsets.UTF_8);
+    }
+
+    /** --threads N a partir de args[from]; 1 (secuencial) por defecto. */
+    private static int parseThreads(String[] args, int from) {
+        for (int i = from; i < args.length - 1; i++) {
+            if ("--threads".equals(args[i])) return Math.max(1, Integer.parseInt(args[i + 1]));
+        }
+        return 1;
+    }
+
+    /**
+      Predicados de q-match a partir de args[from] (--prop / --src / --dst / --range, --not-prop,
+      --or) combinados con PostingJoin; null si no hay ningún predicado positivo.
+     */
+    private static OrdinalCursor matchFilter(GraphReader reader, String[] args, int from) {
+        List<OrdinalCursor> preds = new ArrayList<>(), excluded = new ArrayList<>();
+        for (int i = from; i < args.length - 1; i++) {
+            String v = args[i + 1];
+            int eq = v.indexOf('=');
+            OrdinalCursor p = switch (args[i]) {
+                case "--prop" -> eq < 0 ? null : reader.nodesByProperty(v.substring(0, eq), v.substring(eq + 1));
+                case "--src" -> reader.sourceNodesByLabel(v);
+                case "--dst" -> reader.destinationNodesByLabel(v);
+                case "--range" -> {
+                    long[] r = eq < 0 ? null : parseRange(v.substring(eq + 1));
+                    if (r != null && reader.numericProperty(v.substring(0, eq)) == null) {
+                        System.err.println("--range " + v + ": propiedad no numérica o inexistente");
+                        System.exit(1);
+                    }
+                    yield r == null ? null : reader.nodesByPropRange(v.substring(0, eq), r[0], r[1]);
+                }
+                default -> null;
+            };
+            if (p != null) { preds.add(p); i++; }
+            else if ("--not-prop".equals(args[i]) && eq >= 0) {
+                excluded.add(reader.nodesByProperty(v.substring(0, eq), v.substring(eq + 1)));
+                i++;
+            }
+        }
+        if (preds.isEmpty()) return null;
+        OrdinalCursor[] ps = preds.toArray(new OrdinalCursor[0]);
+        OrdinalCursor match = hasFlag(args, from, "--or") ? PostingJoin.or(ps) : PostingJoin.and(ps);
+        if (!excluded.isEmpty()) match = PostingJoin.andNot(match, PostingJoin.or(excluded.toArray(new OrdinalCursor[0])));
+        return match;
+    }
+
+    /** "lo..hi" (inclusive; un extremo vacío = sin cota) o null si no tiene esa forma. */
+    private static long[] parseRange(String s) {
+        int dots = s.indexOf("..");
+        if (dots < 0) return null;
+        String lo = s.substring(0, dots), hi = s.substring(dots + 2);
+        return new long[]{lo.isEmpty() ? Long.MIN_VALUE : Long.parseLong(lo), hi.isEmpty() ? Long.MAX_VALUE : Long.parseLong(hi)};
+    }
+
+    /** Valor de "flag X" a partir de args[from], o null. */
+    private static String flagValue(String[] args, int from, String flag) {
+        for (int i = from; i < args.length - 1; i++) if (flag.equals(args[i])) return args[i + 1];
+        return null;
+    }
+
+    private static Path optionalPath(String arg) {
+        return "-".equals(arg) ? null : Paths.get(arg);
+    }
+
+    private static boolean hasFlag(String[] args, int from, String flag) {
+        for (int i = from; i < args.length; i++) if (flag.equals(args[i])) return true;
+        return false;
+    }
+
+    /** Buckets no vacíos del histograma: [desde, hasta] de grado y cantidad de nodos. */
+    private static void printDegrees(String dir, int[] hist, int max) {
+        System.out.println("degree." + dir + "\tmax=" + max);
+        for (int b = 0; b < hist.length; b++) {
+            if (hist[b] == 0) continue;
+            long lo = b == 0 ? 0 : 1L << (b - 1), hi = b == 0 ? 0 : (1L << b) - 1;
+            System.out.println("degree." + dir + "\t" + lo + ".." + hi + "\t" + hist[b]);
+        }
+    }
+
     private static void usage() {
         System.err.println("""
           Uso:
             Ingest:
-               ingest nodes.pgdf edges.pgdf /path/to/outDir
+               ingest nodes.pgdf edges.pgdf /path/to/outDir [--threads N] [--single-pass] [--mph] [--plain-ids]
+               (--single-pass: lee edges.pgdf una sola vez; mismo resultado)
+               (--mph: además nodes.id.mph / edges.id.mph, lookup por id sin binary search)
+               (--plain-ids: deja los ids en *.id.str/lex/ord2pos en lugar de *.id.fc front-coded)
+
+            Hash perfecto de ids para un directorio ya ingestado:
+               build-mph /path/to/outDir
+
+            Contenedor de un solo archivo (secciones alineadas a 4 KB, CRC32C por sección):
+               pack /path/to/outDir /path/to/graph.cbin
+               verify-pack /path/to/graph.cbin
+               (todas las consultas q-* aceptan graph.cbin en lugar de outDir)
 
             Consulta nodo:
                q-node /path/to/outDir <nodeId>
+
+            Nodos por propiedad = valor:
+               q-prop /path/to/outDir <propName> <value>
+
+            Aristas por label (--count: solo la cantidad, O(1); --offset/--limit: paginado):
+               q-label /path/to/outDir <label> [--count] [--offset N] [--limit M]
+
+            Nodos origen / destino de aristas con label:
+               q-src /path/to/outDir <label> [--count]
+               q-dst /path/to/outDir <label> [--count]
+
+            Nodos que cumplen todos los predicados (--or: alguno) y ninguna --not-prop, en streaming:
+               q-match /path/to/outDir [--prop name=value]... [--src L]... [--dst L]...
+                       [--range name=lo..hi]... [--not-prop name=value]... [--or] [--count]
+
+            Recorrido de una sola columna (sin índices): valores de la propiedad, o nodos con ese valor:
+               q-scan /path/to/outDir <propName> [<value>] [--count]
+
+            Conteo por grupo (mayor cantidad primero; --top k; filtro opcional de nodos como en q-match):
+               q-agg /path/to/outDir nodes label [filtros] [--top k] [--threads N]
+               q-agg /path/to/outDir nodes prop <propName> [filtros] [--top k] [--threads N]
+               q-agg /path/to/outDir edges label [--top k]
+               (sin filtro, nodes prop y edges label salen de los conteos de los .dir)
+
+            Estadísticas del ingest (graph.stats; sin scan): nodos / aristas por label, NDV y
+            heavy hitters por propiedad, histogramas de grado (buckets potencia de 2), tamaños:
+               stats /path/to/outDir
+
+            Nodos con lo <= propiedad <= hi (propiedades con todos sus valores enteros), por valor:
+               q-range /path/to/outDir <propName> <lo> <hi> [--count]
+
+            Vecinos de un nodo (salientes; --in: entrantes; --label: solo ese label):
+               q-nbr /path/to/outDir <nodeId> [--in] [--label L]
+
+            Store con deltas (segmentos nuevos sobre un outDir; "-" = sin archivo):
+               ingest-delta /path/to/store nodes.pgdf|- edges.pgdf|- [--delete-nodes ids.txt] [--delete-edges ids.txt]
+               compact /path/to/store
+               q-store /path/to/store node <nodeId>
+               q-store /path/to/store prop <propName> <value>
+               q-store /path/to/store label <label>
+               q-store /path/to/store nbr <nodeId> [--in] [--label L]
+               (tras compact queda un solo segmento: las q-*, stats y pack aceptan el store directamente)
         """);
         System.exit(2);
     }
@@ -0,0 +1,61 @@
+package cbin.bench;
+
+import cbin.core.BinaryTransformer;
+import cbin.io.BinaryGraphFiles;
+import cbin.io.PgdfReader;
+
+import java.nio.file.*;
+import java.util.*;
+
+/**
+  Benchmark de la pasada de aristas (resolución nodeId -> ordinal).
+  Genera un grafo sintético en memoria (ids tipo URL, sin leer PGDF), ingesta los nodos y
+  mide aristas/s con el resolver de BinaryTransformer vs. BinaryGraphFiles.nodeIdToOrdinal
+  (binary search sobre archivos, una muestra).
+
+  Uso: java cbin.bench.ResolverBench [numNodes=1000000] [numEdges=3000000] [outDir=tmp]
+ */
+public class ResolverBench {
+    public static void main(String[] args) throws Exception {
+        int numNodes = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int numEdges = args.length > 1 ? Integer.parseInt(args[1]) : 3_000_000;
+        Path out = args.length > 2 ? Paths.get(args[2]) : Files.createTempDirectory("cbin_bench_");
+
+        String base = "https://example.org/node/";
+        BinaryTransformer t = new BinaryTransformer(out);
+
+        t.startNodes();
+        Map<String,String> noProps = Map.of();
+        for (int i = 0; i < numNodes; i++) t.acceptNodeRow(new PgdfReader.NodeRow(base + i, "Person", noProps));
+        t.finishNodesPass1();
+        t.buildNodesIdLex();
+        t.collectEdgeLabelOnly(new PgdfReader.EdgeRow("", "Knows", "T", base + 0, base + 0));
+        t.buildDictionaries();
+        t.materializeNodesRec();
+
+        Random rnd = new Random(1337);
+        long t0 = System.nanoTime();
+        t.startEdges();
+        for (int e = 0; e < numEdges; e++) {
+            String src = base + rnd.nextInt(numNodes);
+            String dst = base + rnd.nextInt(numNodes);
+            t.acceptEdgeRow(new PgdfReader.EdgeRow("E" + e, "Knows", "T", src, dst));
+        }
+        t.finishEdges();
+        double secs = (System.nanoTime() - t0) / 1e9;
+        System.out.printf(Locale.ROOT, "resolver: %d aristas en %.3f s (%.0f aristas/s)%n", numEdges, secs, numEdges / secs);
+
+        // referencia: 2 binary search sobre archivos por arista, en una muestra
+        int sample = Math.min(numEdges, 20_000);
+        Path lex = out.resolve("nodes.id.lex"), str = out.resolve("nodes.id.str");
+        long t1 = System.nanoTime();
+        for (int e = 0; e < sample; e++) {
+            BinaryGraphFiles.nodeIdToOrdinal(lex, str, base + rnd.nextInt(numNodes));
+            BinaryGraphFiles.nodeIdToOrdinal(lex, str, base + rnd.nextInt(numNodes));
+        }
+        double secs2 = (System.nanoTime() - t1) / 1e9;
+        System.out.printf(Locale.ROOT, "nodeIdToOrdinal (muestra): %d aristas en %.3f s (%.0f aristas/s, solo lookups)%n",
+                sample, secs2, sample / secs2);
+        t.buildIndexes();
+    }
+}
@@ -1,17 +1,28 @@
 package cbin.core;
 
+import cbin.io.AdjacencyBuilder;
 import cbin.io.BinaryGraphFiles;
+import cbin.io.DictionaryCache;
+import cbin.io.GraphReader;
+import cbin.io.IngestSession;
+import cbin.io.MappedFile;
+import cbin.io.PgdfChunks;
 import cbin.io.PgdfReader;
+import com.pgdf.PgdfTokenizer;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class BinaryTransformer {
 
     private final Path outDir;
     private final BinaryGraphFiles.IO io = new BinaryGraphFiles.IO();
+    private final IngestSession session = new IngestSession();
 
     // tmp() NO depende de outDir, así que se puede crear aquí sin problema
     private final Path propValTmp = tmp("propvals.tmp");            // strings 1 por línea UTF-8
@@ -19,7 +30,10 @@ public class BinaryTransformer {
     private final Path tmpEdgesByLabel = tmp("idx.edgesByLabel.tmp");
     private final Path tmpSrcByLabel   = tmp("idx.srcByLabel.tmp");
     private final Path tmpDstByLabel   = tmp("idx.dstByLabel.tmp");
+    private final Path tmpAdjOut       = tmp("adj.out.tmp");            // (src, label, dst)
+    private final Path tmpAdjIn        = tmp("adj.in.tmp");             // (dst, label, src)
     private final Path tmpNodesByProp  = tmp("idx.nodesByProp.tmp");
+    private final Path tmpNodeColumns  = tmp("nodes.col.tmp");         // (propName, ord, propVal)
 
     // Estos SÍ dependen de outDir -> se asignan en el constructor
     private Path nodesIdStr;
@@ -42,6 +56,14 @@ public class BinaryTransformer {
     private Path idxDstByLabelDir;
     private Path idxNodesByPropPl;
     private Path idxNodesByPropDir;
+    private Path nodesNumDir;
+    private Path nodesNumCol;
+    private Path nodesNumRng;
+
+    private Path adjOutOff;
+    private Path adjOutNbr;
+    private Path adjInOff;
+    private Path adjInNbr;
 
     private Path dictLabelsStr;
     private Path dictLabelsLex;
@@ -58,15 +80,24 @@ public class BinaryTransformer {
     private final Set<String> propNameSet = new HashSet<>();
     private Map<String,Integer> labelId;
     private Map<String,Integer> propNameId;
+    private DictionaryCache labelDict;
+    private DictionaryCache propNameDict;
+    private DictionaryCache propValDict;
+    private NodeIdResolver nodeResolver;
+
+    // Aristas en una pasada: label -> id provisional (orden de llegada), remapeado en remapEdgeLabels
+    private ConcurrentHashMap<String,Integer> provisionalLabels;
+    private Path edgesRecTmp;                       // edges.rec con labels provisionales (solo pasada única)
+    private final AtomicInteger provisionalCount = new AtomicInteger();
+    private int[] labelRemap;
 
     private int nodeCount = 0;
-    private final List<Integer> nodeIdOff = new ArrayList<>();
-    private final List<Integer> nodeIdLen = new ArrayList<>();
-    private List<String> nodeIdsForLex;  // se libera tras build
+    private final LongArray nodeIdOff = new LongArray();
+    private final IntArray nodeIdLen = new IntArray();
 
     private int edgeCount = 0;
-    private final List<Integer> edgeIdOff = new ArrayList<>();
-    private final List<Integer> edgeIdLen = new ArrayList<>();
+    private final LongArray edgeIdOff = new LongArray();
+    private final IntArray edgeIdLen = new IntArray();
 
     public BinaryTransformer(Path outDir) {
         this.outDir = outDir;
@@ -97,6 +128,14 @@ public class BinaryTransformer {
         this.idxDstByLabelDir   = outFile("idx.dstByLabel.dir");
         this.idxNodesByPropPl   = outFile("idx.nodesByProp.pl");
         this.idxNodesByPropDir  = outFile("idx.nodesByProp.dir");
+        this.nodesNumDir        = outFile("nodes.num.dir");
+        this.nodesNumCol        = outFile("nodes.num.col");
+        this.nodesNumRng        = outFile("nodes.num.rng");
+
+        this.adjOutOff          = outFile("adj.out.off");
+        this.adjOutNbr          = outFile("adj.out.nbr");
+        this.adjInOff           = outFile("adj.in.off");
+        this.adjInNbr           = outFile("adj.in.nbr");
 
         this.dictLabelsStr      = outFile("dict.labels.str");
         this.dictLabelsLex      = outFile("dict.labels.lex");
@@ -120,92 +159,192 @@ public class BinaryTransformer {
     // usando los Paths ya inicializados en el constructor.
     // ==========================
 
+    public void startNodes() throws IOException {
+        session.beginPhase("nodes");
+        session.sink(nodesIdStr);
+        session.sink(nodesPropsTmp);
+        session.sink(propValTmp);
+    }
+
     public void acceptNodeRow(PgdfReader.NodeRow row) {
         try {
-            byte[] idb = row.nodeId.getBytes(StandardCharsets.UTF_8);
-            try (var os = Files.newOutputStream(nodesIdStr, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
-                os.write(idb);
-            }
-            nodeIdOff.add(nodeCount == 0 ? 0 : (nodeIdOff.get(nodeCount - 1) + nodeIdLen.get(nodeCount - 1)));
-            nodeIdLen.add(idb.length);
+            session.row();
+            var ids = session.sink(nodesIdStr);
+            long off = ids.position();
+            int len = encodeNode(row, ids, session.sink(nodesPropsTmp), session.sink(propValTmp), labelSet, propNameSet);
+            addId(nodeIdOff, nodeIdLen, off, len);
+            nodeCount++;
+        } catch (IOException ioe) {
+            throw new RuntimeException(ioe);
+        }
+    }
 
-            try (var os = new DataOutputStream(new BufferedOutputStream(
-                    Files.newOutputStream(nodesPropsTmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND), 1 << 20))) {
-                os.writeInt(nodeCount); // ordinal
-                writeStr(os, row.label);
-                labelSet.add(row.label);
-
-                os.writeInt(row.props.size());
-                for (var e : row.props.entrySet()) {
-                    String name = e.getKey();
-                    String val = e.getValue() == null ? "" : e.getValue();
-                    String valLower = val.toLowerCase(Locale.ROOT);
-
-                    writeStr(os, name);
-                    writeStr(os, valLower);
-
-                    propNameSet.add(name);
-                    Files.writeString(propValTmp, valLower + "\n",
-                            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
-                }
-            }
+    /**
+      Codifica un nodo: id al pool, [label, n, (name, valLower)*] al temporal de props
+      (el ordinal queda implícito por posición) y cada valor a propvals.tmp.
+      Devuelve el largo en bytes del id.
+     */
+    private static int encodeNode(PgdfReader.NodeRow row, IngestSession.Sink ids, IngestSession.Sink props,
+                                  IngestSession.Sink propVals, Set<String> labels, Set<String> propNames) throws IOException {
+        byte[] idb = row.nodeId.getBytes(StandardCharsets.UTF_8);
+        ids.write(idb);
+
+        writeStr(props, row.label);
+        labels.add(row.label);
+
+        props.writeInt(row.props.size());
+        for (var e : row.props.entrySet()) {
+            String name = e.getKey();
+            String val = e.getValue() == null ? "" : e.getValue();
+            String valLower = val.toLowerCase(Locale.ROOT);
+
+            writeStr(props, name);
+            byte[] vb = writeStr(props, valLower);
+
+            propNames.add(name);
+            propVals.write(vb);
+            propVals.write('\n');
+        }
+        return idb.length;
+    }
+
+    /** Igual que acceptNodeRow pero sobre la fila actual del tokenizer (sin NodeRow ni Strings por fila). */
+    public void acceptNode(PgdfTokenizer t) {
+        if (!isNodeRow(t)) return;
+        try {
+            session.row();
+            var ids = session.sink(nodesIdStr);
+            long off = ids.position();
+            int len = encodeNode(t, ids, session.sink(nodesPropsTmp), session.sink(propValTmp), labelSet, propNameSet);
+            addId(nodeIdOff, nodeIdLen, off, len);
             nodeCount++;
         } catch (IOException ioe) {
             throw new RuntimeException(ioe);
         }
     }
 
-    private static void writeStr(DataOutputStream dos, String s) throws IOException {
+    private static boolean isNodeRow(PgdfTokenizer t) {
+        PgdfTokenizer.Header h = t.header();
+        return t.trimLen(h.id) > 0 && t.trimLen(h.label) > 0;
+    }
+
+    /**
+      Mismo registro que encodeNode(NodeRow, ...) pero copiando bytes directo desde el tokenizer:
+      id y label trimmeados, nombres de propiedad ya codificados en el header y valores en
+      minúsculas byte a byte (String solo para valores no-ASCII).
+     */
+    private static int encodeNode(PgdfTokenizer t, IngestSession.Sink ids, IngestSession.Sink props,
+                                  IngestSession.Sink propVals, Set<String> labels, Set<String> propNames) throws IOException {
+        PgdfTokenizer.Header h = t.header();
+        byte[] b = t.bytes();
+        int ids0 = t.trimStart(h.id), idLen = t.trimEnd(h.id) - ids0;
+        ids.write(b, ids0, idLen);
+
+        int ls = t.trimStart(h.label), ll = t.trimEnd(h.label) - ls;
+        props.writeInt(ll);
+        props.write(b, ls, ll);
+        labels.add(t.intern(h.label));
+
+        int cols = t.columns(), n = 0;
+        for (int c = 0; c < cols; c++) if (!h.isReserved(c)) n++;
+        props.writeInt(n);
+        for (int c = 0; c < cols; c++) {
+            if (h.isReserved(c)) continue;
+            byte[] name = h.nameUtf8[c];
+            props.writeInt(name.length);
+            props.write(name);
+            propNames.add(h.names[c]);
+
+            int s = t.start(c), e = t.end(c);
+            if (isAscii(b, s, e)) {
+                props.writeInt(e - s);
+                for (int i = s; i < e; i++) props.write(lowerAscii(b[i]));
+                for (int i = s; i < e; i++) propVals.write(lowerAscii(b[i]));
+            } else {
+                byte[] vb = writeStr(props, t.str(c).toLowerCase(Locale.ROOT));
+                propVals.write(vb);
+            }
+            propVals.write('\n');
+        }
+        return idLen;
+    }
+
+    private static boolean isAscii(byte[] b, int s, int e) {
+        for (int i = s; i < e; i++) if (b[i] < 0) return false;
+        return true;
+    }
+
+    private static int lowerAscii(byte c) {
+        return c >= 'A' && c <= 'Z' ? c + 32 : c;
+    }
+
+    private static byte[] writeStr(IngestSession.Sink os, String s) throws IOException {
         byte[] b = s.getBytes(StandardCharsets.UTF_8);
-        dos.writeInt(b.length);
-        dos.write(b);
+        os.writeInt(b.length);
+        os.write(b);
+        return b;
     }
-    private static String readStr(DataInputStream dis) throws IOException {
+    private static byte[] readBytes(DataInputStream dis) throws IOException {
         int len = dis.readInt();
-        byte[] b = dis.readNBytes(len);
-        return new String(b, StandardCharsets.UTF_8);
+        return dis.readNBytes(len);
     }
 
+    /** Nodos aceptados hasta ahora (= ordinal del próximo). */
+    public int nodeCount() { return nodeCount; }
+
     public void finishNodesPass1() throws IOException {
+        session.endPhase();
         try (var os = new DataOutputStream(new BufferedOutputStream(
                 Files.newOutputStream(nodesIdOrd2Pos, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING), 1<<20))) {
             for (int i = 0; i < nodeCount; i++) {
-                os.writeInt(nodeIdOff.get(i));
+                os.writeInt((int) nodeIdOff.get(i));
                 os.writeInt(nodeIdLen.get(i));
             }
         }
     }
 
     public void buildNodesIdLex() throws IOException {
-        nodeIdsForLex = new ArrayList<>(nodeCount);
-        try (var is = new DataInputStream(new BufferedInputStream(Files.newInputStream(nodesIdOrd2Pos)))) {
-            byte[] buf = Files.readAllBytes(nodesIdStr);
-            for (int i = 0; i < nodeCount; i++) {
-                int off = is.readInt();
-                int len = is.readInt();
-                String id = new String(buf, off, len, StandardCharsets.UTF_8);
-                nodeIdsForLex.add(id);
-            }
-        }
-        Integer[] ords = new Integer[nodeCount];
-        for (int i=0;i<nodeCount;i++) ords[i]=i;
-        Arrays.sort(ords, Comparator.comparing(i -> nodeIdsForLex.get(i), String::compareTo));
-        try (var os = new DataOutputStream(new BufferedOutputStream(
-                Files.newOutputStream(nodesIdLex, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING), 1<<20))) {
-            for (int ord : ords) {
-                os.writeInt(nodeIdOff.get(ord));
-                os.writeInt(nodeIdLen.get(ord));
-                os.writeInt(ord);
+        writeIdLex(nodesIdStr, nodesIdLex, nodeIdOff, nodeIdLen, nodeCount);
+        // resolver nodeId -> ordinal para toda la pasada de aristas
+        nodeResolver = NodeIdResolver.build(MappedFile.open(nodesIdStr), nodeIdOff, nodeIdLen, nodeCount, nodesIdLex);
+    }
+
+    /** Ordena los ordinales por bytes UTF-8 del id (pool mmapeado) y escribe [off,len,ord] * n. */
+    private static void writeIdLex(Path pool, Path lex, LongArray off, IntArray len, int n) throws IOException {
+        try (var ords = IntArray.identity(n)) {
+            OrdinalSort.sort(ords, OrdinalSort.byPool(MappedFile.open(pool), off, len));
+            try (var os = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(lex, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING), 1<<20))) {
+                for (int i = 0; i < n; i++) {
+                    int ord = ords.get(i);
+                    os.writeInt((int) off.get(ord));
+                    os.writeInt(len.get(ord));
+                    os.writeInt(ord);
+                }
             }
         }
-        nodeIdsForLex = null;
+    }
+
+    /** Máximo fin de id en *.id.str: ord2pos y lex guardan el offset como u32 sin signo (hasta 4 GB). */
+    private static final long MAX_POOL = 0xFFFFFFFFL;
+
+    /** Registra offset + largo de un id del pool (offset long: el pool puede pasar de 2 GB). */
+    private static void addId(LongArray offs, IntArray lens, long off, int len) throws IOException {
+        if (off + len > MAX_POOL) throw new IOException("pool de ids > 4 GB: los offsets de ord2pos / lex son u32");
+        offs.add(off);
+        lens.add(len);
     }
 
     public void collectEdgeLabelOnly(PgdfReader.EdgeRow row) {
         if (row.label != null && !row.label.isEmpty()) labelSet.add(row.label);
     }
 
+    public void collectEdgeLabel(PgdfTokenizer t) {
+        if (isEdgeRow(t)) labelSet.add(t.intern(t.header().label));
+    }
+
     public void buildDictionaries() throws IOException {
+        if (provisionalLabels != null) labelSet.addAll(provisionalLabels.keySet());
         var labels = new ArrayList<>(labelSet);
         labels.sort(String::compareTo);
         labelId = new LinkedHashMap<>();
@@ -218,50 +357,75 @@ public class BinaryTransformer {
         for (int i=0;i<pnames.size();i++) propNameId.put(pnames.get(i), i);
         BinaryGraphFiles.writeDictionary(dictPropNameStr, dictPropNameLex, dictPropNameOrd2Pos, pnames);
 
-        List<String> vals = Files.readAllLines(propValTmp, StandardCharsets.UTF_8);
-        vals.sort(String::compareTo);
-        int w = 0;
-        for (int i=0;i<vals.size();i++){
-            if (w==0 || !vals.get(i).equals(vals.get(w-1))) {
-                if (w!=i) vals.set(w, vals.get(i));
-                w++;
-            }
-        }
-        if (w < vals.size()) vals.subList(w, vals.size()).clear();
-        BinaryGraphFiles.writeDictionary(dictPropValStr, dictPropValLex, dictPropValOrd2Pos, vals);
+        new ExternalDictionaryBuilder().build(propValTmp, dictPropValStr, dictPropValLex, dictPropValOrd2Pos);
         Files.deleteIfExists(propValTmp);
+
+        // caches string -> id para materializeNodesRec / aristas (hash en memoria o mmap si no cabe)
+        labelDict    = DictionaryCache.open(dictLabelsLex, dictLabelsStr);
+        propNameDict = DictionaryCache.open(dictPropNameLex, dictPropNameStr);
+        propValDict  = DictionaryCache.open(dictPropValLex, dictPropValStr);
     }
 
     public void materializeNodesRec() throws IOException {
         try (var dis = new DataInputStream(new BufferedInputStream(Files.newInputStream(nodesPropsTmp), 1<<20));
              var rec = new BufferedOutputStream(Files.newOutputStream(nodesRec, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), 1<<20);
-             var off = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(nodesOff, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), 1<<20))) {
+             var off = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(nodesOff, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), 1<<20));
+             var triples = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpNodesByProp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), 1<<20));
+             var columns = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpNodeColumns, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), 1<<20));
+             var numeric = new NumericColumnsBuilder(propNameId.size())) {
 
             long pos = 0L;
+            // nombre repetido en la fila: gana el último valor (como el LinkedHashMap del loader
+            // original) en nodes.rec, idx.nodesByProp, nodes.col.* y nodes.num.*; se conserva la
+            // posición de la primera aparición. seenOrd/seenSlot: último ordinal y slot por propiedad.
+            int[] seenOrd = new int[propNameId.size()], seenSlot = new int[propNameId.size()];
+            Arrays.fill(seenOrd, -1);
+            int[] pn = new int[16];
+            byte[][] vals = new byte[16][];
             for (int i=0;i<nodeCount;i++){
-                int ordinal = dis.readInt();
-                String labelS = readStr(dis);
+                int ordinal = i;
+                byte[] labelB = readBytes(dis);
                 int pcount = dis.readInt();
 
-                int label = BinaryGraphFiles.stringToId(labelS, dictLabelsLex, dictLabelsStr);
-                List<Integer> pn = new ArrayList<>(pcount);
-                List<Integer> pv = new ArrayList<>(pcount);
+                int label = labelDict.idOf(labelB);
+                if (pcount > pn.length) {
+                    pn = new int[pcount];
+                    vals = new byte[pcount][];
+                }
+                int n = 0;
                 for (int k=0;k<pcount;k++){
-                    String name = readStr(dis);
-                    String val  = readStr(dis); // lower
-                    Integer pnid = propNameId.get(name);
-                    if (pnid == null) pnid = BinaryGraphFiles.stringToId(name, dictPropNameLex, dictPropNameStr);
-                    int pvid = BinaryGraphFiles.stringToId(val, dictPropValLex, dictPropValStr);
-                    pn.add(pnid);
-                    pv.add(pvid);
+                    byte[] name = readBytes(dis);
+                    byte[] val  = readBytes(dis); // lower
+                    int pnid = propNameDict.idOf(name);
+                    int slot;
+                    if (seenOrd[pnid] == ordinal) slot = seenSlot[pnid];
+                    else {
+                        slot = n++;
+                        seenOrd[pnid] = ordinal;
+                        seenSlot[pnid] = slot;
+                        pn[slot] = pnid;
+                    }
+                    vals[slot] = val;
                 }
 
                 ByteArrayOutputStream buf = new ByteArrayOutputStream(64);
                 BinaryGraphFiles.VarInt.writeUnsigned(buf, label);
-                BinaryGraphFiles.VarInt.writeUnsigned(buf, pcount);
-                for (int t=0;t<pcount;t++){
-                    BinaryGraphFiles.VarInt.writeUnsigned(buf, pn.get(t));
-                    BinaryGraphFiles.VarInt.writeUnsigned(buf, pv.get(t));
+                BinaryGraphFiles.VarInt.writeUnsigned(buf, n);
+                for (int t=0;t<n;t++){
+                    int pvid = propValDict.idOf(vals[t]);
+                    BinaryGraphFiles.VarInt.writeUnsigned(buf, pn[t]);
+                    BinaryGraphFiles.VarInt.writeUnsigned(buf, pvid);
+
+                    // triples para idx.nodesByProp y las columnas (valores vacíos no se indexan)
+                    if (vals[t].length > 0) {
+                        triples.writeInt(pn[t]);
+                        triples.writeInt(pvid);
+                        triples.writeInt(ordinal);
+                        columns.writeInt(pn[t]);
+                        columns.writeInt(ordinal);
+                        columns.writeInt(pvid);
+                    }
+                    numeric.accept(pn[t], ordinal, vals[t]);
                 }
                 byte[] b = buf.toByteArray();
                 rec.write(b);
@@ -269,103 +433,471 @@ public class BinaryTransformer {
                 off.writeLong(Long.reverseBytes(pos)); // LE u64
                 pos += b.length;
             }
+
+            // propiedades con todos sus valores enteros: columnas i64 + índice de rango (ver NumericColumns)
+            numeric.build(nodeCount, nodesNumDir, nodesNumCol, nodesNumRng);
         }
         Files.deleteIfExists(nodesPropsTmp);
+
+        // una columna densa por propiedad (valueIds + bitmap de nodos con valor; ver NodeColumns)
+        NodeColumnsBuilder.build(tmpNodeColumns, nodeCount, outDir);
+        Files.deleteIfExists(tmpNodeColumns);
+    }
+
+    /** Salidas de la pasada de aristas (de la sesión o de un segmento). off null = no se escribe. */
+    private static final class EdgeSinks {
+        final IngestSession.Sink ids, rec, off, byLabel, src, dst, adjOut, adjIn;
+        EdgeSinks(IngestSession.Sink ids, IngestSession.Sink rec, IngestSession.Sink off, IngestSession.Sink byLabel,
+                  IngestSession.Sink src, IngestSession.Sink dst, IngestSession.Sink adjOut, IngestSession.Sink adjIn) {
+            this.ids = ids; this.rec = rec; this.off = off; this.byLabel = byLabel;
+            this.src = src; this.dst = dst; this.adjOut = adjOut; this.adjIn = adjIn;
+        }
+    }
+
+    private EdgeSinks edgeSinks;
+
+    public void startEdges() throws IOException {
+        session.beginPhase("edges");
+        edgeSinks = new EdgeSinks(session.sink(edgesIdStr), session.sink(recTarget()), offTarget(),
+                session.sink(tmpEdgesByLabel, 1<<16), session.sink(tmpSrcByLabel, 1<<16), session.sink(tmpDstByLabel, 1<<16),
+                session.sink(tmpAdjOut, 1<<16), session.sink(tmpAdjIn, 1<<16));
+    }
+
+    /**
+      Pasada única de aristas: se llama en lugar de collectEdgeLabel + startEdges, antes de
+      buildDictionaries (basta con buildNodesIdLex). Los labels reciben ids provisionales y
+      edges.rec va a un temporal; remapEdgeLabels (después de buildDictionaries) escribe
+      edges.rec/off definitivos y buildIndexes remapea los labels de los índices.
+     */
+    public void startEdgesSinglePass() throws IOException {
+        provisionalLabels = new ConcurrentHashMap<>();
+        edgesRecTmp = tmp("edges.rec.tmp");
+        startEdges();
+    }
+
+    private Path recTarget() { return provisionalLabels != null ? edgesRecTmp : edgesRec; }
+
+    /** Sink de edges.off durante la pasada; null en pasada única (los offsets salen en remapEdgeLabels). */
+    private IngestSession.Sink offTarget() throws IOException {
+        return provisionalLabels != null ? null : session.sink(edgesOff);
+    }
+
+    private int provisionalLabel(String label) {
+        return provisionalLabels.computeIfAbsent(label, k -> provisionalCount.getAndIncrement());
     }
 
     public void acceptEdgeRow(PgdfReader.EdgeRow row) {
         try {
-            if (row.label == null || row.label.isEmpty()) return;
-            if (!"T".equalsIgnoreCase(row.dir == null ? "T" : row.dir)) return;
-            if (row.outId == null || row.outId.isEmpty()) return;
-            if (row.inId == null || row.inId.isEmpty()) return;
-
-            String edgeId = row.edgeId;
-            if (edgeId == null || edgeId.isEmpty()) {
-                edgeId = BinaryGraphFiles.makeEdgeId(row.outId, row.label, row.inId);
-            }
+            session.row();
+            long off = edgeSinks.ids.position();
+            int len = encodeEdge(row, edgeCount, edgeSinks);
+            if (len < 0) return;
+            addId(edgeIdOff, edgeIdLen, off, len);
+            edgeCount++;
+        } catch (IOException ioe) {
+            throw new RuntimeException(ioe);
+        }
+    }
 
-            byte[] idb = edgeId.getBytes(StandardCharsets.UTF_8);
-            try (var os = Files.newOutputStream(edgesIdStr, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
-                os.write(idb);
-            }
-            edgeIdOff.add(edgeCount == 0 ? 0 : (edgeIdOff.get(edgeCount - 1) + edgeIdLen.get(edgeCount - 1)));
-            edgeIdLen.add(idb.length);
-
-            int label = BinaryGraphFiles.stringToId(row.label, dictLabelsLex, dictLabelsStr);
-            int srcOrd = BinaryGraphFiles.nodeIdToOrdinal(nodesIdLex, nodesIdStr, row.outId);
-            int dstOrd = BinaryGraphFiles.nodeIdToOrdinal(nodesIdLex, nodesIdStr, row.inId);
-
-            ByteArrayOutputStream buf = new ByteArrayOutputStream(32);
-            BinaryGraphFiles.VarInt.writeUnsigned(buf, label);
-            BinaryGraphFiles.VarInt.writeUnsigned(buf, srcOrd);
-            BinaryGraphFiles.VarInt.writeUnsigned(buf, dstOrd);
-            byte[] recBytes = buf.toByteArray();
-            try (var osr = Files.newOutputStream(edgesRec, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
-                osr.write(recBytes);
-            }
-            try (var oso = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(edgesOff, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND), 1<<16))) {
-                long curSize = Files.size(edgesRec) - recBytes.length;
-                oso.writeLong(Long.reverseBytes(curSize));
-            }
+    /**
+      Codifica una arista con el ordinal dado: id al pool, offset + (label, src, dst) varint
+      a rec/off, los pares (label, x) de los índices y los triples de adyacencia. Solo lee estado inmutable durante la
+      pasada (labelDict, nodeResolver), así que es seguro desde varios hilos con sinks distintos.
+      Devuelve el largo en bytes del id, o -1 si la arista se descarta.
+     */
+    private int encodeEdge(PgdfReader.EdgeRow row, int ordinal, EdgeSinks o) throws IOException {
+        if (row.label == null || row.label.isEmpty()) return -1;
+        if (row.outId == null || row.outId.isEmpty()) return -1;
+        if (row.inId == null || row.inId.isEmpty()) return -1;
+        // en pasada única el label cuenta aunque la arista se descarte (igual que collectEdgeLabelOnly)
+        int label = provisionalLabels != null ? provisionalLabel(row.label) : labelDict.idOf(row.label);
+        if (!"T".equalsIgnoreCase(row.dir == null ? "T" : row.dir)) return -1;
+
+        String edgeId = row.edgeId;
+        if (edgeId == null || edgeId.isEmpty()) {
+            edgeId = BinaryGraphFiles.makeEdgeId(row.outId, row.label, row.inId);
+        }
 
-            try (var os = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpEdgesByLabel, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND), 1<<16))) {
-                os.writeInt(label);
-                os.writeInt(edgeCount);
-            }
-            try (var os = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpSrcByLabel, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND), 1<<16))) {
-                os.writeInt(label);
-                os.writeInt(srcOrd);
-            }
-            try (var os = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpDstByLabel, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND), 1<<16))) {
-                os.writeInt(label);
-                os.writeInt(dstOrd);
-            }
+        byte[] idb = edgeId.getBytes(StandardCharsets.UTF_8);
+        o.ids.write(idb);
+        writeEdge(label, nodeResolver.ordinalOf(row.outId), nodeResolver.ordinalOf(row.inId), ordinal, o);
+        return idb.length;
+    }
 
+    /** Igual que acceptEdgeRow pero sobre la fila actual del tokenizer. */
+    public void acceptEdge(PgdfTokenizer t) {
+        if (!isEdgeRow(t)) return;
+        try {
+            session.row();
+            long off = edgeSinks.ids.position();
+            int len = encodeEdge(t, edgeCount, edgeSinks);
+            if (len < 0) return;
+            addId(edgeIdOff, edgeIdLen, off, len);
             edgeCount++;
         } catch (IOException ioe) {
             throw new RuntimeException(ioe);
         }
     }
 
+    private static boolean isEdgeRow(PgdfTokenizer t) {
+        PgdfTokenizer.Header h = t.header();
+        return t.trimLen(h.label) > 0 && t.trimLen(h.out) > 0 && t.trimLen(h.in) > 0;
+    }
+
+    /** encodeEdge sobre el tokenizer: label y endpoints se resuelven por bytes, sin Strings. */
+    private int encodeEdge(PgdfTokenizer t, int ordinal, EdgeSinks o) throws IOException {
+        PgdfTokenizer.Header h = t.header();
+        byte[] b = t.bytes();
+        int ls = t.trimStart(h.label);
+        int label = provisionalLabels != null ? provisionalLabel(t.intern(h.label)) : labelDict.idOf(b, ls, t.trimEnd(h.label) - ls);
+        if (t.has(h.dir) && !t.trimmedEqualsIgnoreCaseAscii(h.dir, "T")) return -1;
+
+        int idLen;
+        if (t.trimLen(h.id) > 0) {
+            int s = t.trimStart(h.id);
+            idLen = t.trimEnd(h.id) - s;
+            o.ids.write(b, s, idLen);
+        } else {
+            byte[] idb = BinaryGraphFiles.makeEdgeId(t.trimmed(h.out), t.intern(h.label), t.trimmed(h.in))
+                    .getBytes(StandardCharsets.UTF_8);
+            o.ids.write(idb);
+            idLen = idb.length;
+        }
+
+        int os = t.trimStart(h.out), is = t.trimStart(h.in);
+        writeEdge(label,
+                nodeResolver.ordinalOf(b, os, t.trimEnd(h.out) - os),
+                nodeResolver.ordinalOf(b, is, t.trimEnd(h.in) - is),
+                ordinal, o);
+        return idLen;
+    }
+
+    /**
+      Offset + (label, src, dst) varint a rec/off, los pares (label, x) de los índices (src / dst
+      solo si ese extremo existe) y los triples de adyacencia (solo si ambos extremos existen).
+     */
+    private static void writeEdge(int label, int srcOrd, int dstOrd, int ordinal, EdgeSinks o) throws IOException {
+        if (o.off != null) o.off.writeLongLE(o.rec.position());
+        BinaryGraphFiles.VarInt.writeUnsigned(o.rec, label);
+        BinaryGraphFiles.VarInt.writeUnsigned(o.rec, srcOrd);
+        BinaryGraphFiles.VarInt.writeUnsigned(o.rec, dstOrd);
+
+        o.byLabel.writeInt(label);
+        o.byLabel.writeInt(ordinal);
+        if (srcOrd >= 0) {
+            o.src.writeInt(label);
+            o.src.writeInt(srcOrd);
+        }
+        if (dstOrd >= 0) {
+            o.dst.writeInt(label);
+            o.dst.writeInt(dstOrd);
+        }
+
+        if (srcOrd < 0 || dstOrd < 0) return;
+        o.adjOut.writeInt(srcOrd);
+        o.adjOut.writeInt(label);
+        o.adjOut.writeInt(dstOrd);
+        o.adjIn.writeInt(dstOrd);
+        o.adjIn.writeInt(label);
+        o.adjIn.writeInt(srcOrd);
+    }
+
     public void finishEdges() throws IOException {
+        session.endPhase();
+        edgeSinks = null;
         try (var os = new DataOutputStream(new BufferedOutputStream(
                 Files.newOutputStream(edgesIdOrd2Pos, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), 1<<20))) {
             for (int i=0;i<edgeCount;i++){
-                os.writeInt(edgeIdOff.get(i));
+                os.writeInt((int) edgeIdOff.get(i));
                 os.writeInt(edgeIdLen.get(i));
             }
         }
-        List<String> eids = new ArrayList<>(edgeCount);
-        byte[] all = Files.readAllBytes(edgesIdStr);
-        try (var is = new DataInputStream(new BufferedInputStream(Files.newInputStream(edgesIdOrd2Pos)))) {
-            for (int i=0;i<edgeCount;i++){
-                int off = is.readInt(), len = is.readInt();
-                eids.add(new String(all, off, len, StandardCharsets.UTF_8));
-            }
-        }
-        Integer[] ords = new Integer[edgeCount];
-        for (int i=0;i<edgeCount;i++) ords[i]=i;
-        Arrays.sort(ords, Comparator.comparing(eids::get));
-        try (var os = new DataOutputStream(new BufferedOutputStream(
-                Files.newOutputStream(edgesIdLex, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), 1<<20))) {
-            for (int ord : ords) {
-                os.writeInt(edgeIdOff.get(ord));
-                os.writeInt(edgeIdLen.get(ord));
-                os.writeInt(ord);
+        writeIdLex(edgesIdStr, edgesIdLex, edgeIdOff, edgeIdLen, edgeCount);
+    }
+
+    /**
+      Pasada única: con el diccionario de labels ya construido, reescribe edges.rec desde el
+      temporal con los ids definitivos (el largo de los varint puede cambiar) y genera edges.off.
+     */
+    public void remapEdgeLabels() throws IOException {
+        if (provisionalLabels == null) return;
+        labelRemap = new int[provisionalCount.get()];
+        for (var e : provisionalLabels.entrySet()) labelRemap[e.getValue()] = labelDict.idOf(e.getKey());
+
+        try (var out = new IngestSession();
+             var is = new BufferedInputStream(Files.newInputStream(edgesRecTmp), 1<<20)) {
+            var rec = out.sink(edgesRec);
+            var off = out.sink(edgesOff);
+            for (int i = 0; i < edgeCount; i++) {
+                int label = labelRemap[(int) BinaryGraphFiles.VarInt.readUnsigned(is)];
+                long srcOrd = BinaryGraphFiles.VarInt.readUnsigned(is);
+                long dstOrd = BinaryGraphFiles.VarInt.readUnsigned(is);
+                off.writeLongLE(rec.position());
+                BinaryGraphFiles.VarInt.writeUnsigned(rec, label);
+                BinaryGraphFiles.VarInt.writeUnsigned(rec, srcOrd);
+                BinaryGraphFiles.VarInt.writeUnsigned(rec, dstOrd);
             }
         }
+        Files.deleteIfExists(edgesRecTmp);
     }
 
+    /**
+      Índices de posting lists y adyacencia. La codificación de cada lista la elige
+      PostingIndexBuilder por su largo y densidad: delta + varint, bloques con skip o bitmap
+      (umbral -Dcbin.index.bitmapDensity; ver PostingFormat).
+     */
     public void buildIndexes() throws IOException {
-        BinaryGraphFiles.buildLabelIndex(tmpEdgesByLabel, idxEdgesByLabelPl, idxEdgesByLabelDir);
-        BinaryGraphFiles.buildLabelIndex(tmpSrcByLabel,   idxSrcByLabelPl,   idxSrcByLabelDir);
-        BinaryGraphFiles.buildLabelIndex(tmpDstByLabel,   idxDstByLabelPl,   idxDstByLabelDir);
+        BinaryGraphFiles.buildLabelIndex(tmpEdgesByLabel, idxEdgesByLabelPl, idxEdgesByLabelDir, labelRemap);
+        BinaryGraphFiles.buildLabelIndex(tmpSrcByLabel,   idxSrcByLabelPl,   idxSrcByLabelDir,   labelRemap);
+        BinaryGraphFiles.buildLabelIndex(tmpDstByLabel,   idxDstByLabelPl,   idxDstByLabelDir,   labelRemap);
         Files.deleteIfExists(tmpEdgesByLabel);
         Files.deleteIfExists(tmpSrcByLabel);
         Files.deleteIfExists(tmpDstByLabel);
 
+        // adyacencia CSR (out / in), agrupada por nodo y ordenada por (label, vecino)
+        AdjacencyBuilder.build(tmpAdjOut, nodeCount, adjOutOff, adjOutNbr, labelRemap);
+        AdjacencyBuilder.build(tmpAdjIn,  nodeCount, adjInOff,  adjInNbr,  labelRemap);
+        Files.deleteIfExists(tmpAdjOut);
+        Files.deleteIfExists(tmpAdjIn);
+
         BinaryGraphFiles.buildNodesByPropIndex(tmpNodesByProp, idxNodesByPropPl, idxNodesByPropDir);
         Files.deleteIfExists(tmpNodesByProp);
+
+        // liberar tablas de offsets (y archivos spill si los hay)
+        nodeResolver = null;
+        nodeIdOff.close(); nodeIdLen.close();
+        edgeIdOff.close(); edgeIdLen.close();
+    }
+
+    /**
+      Opcional (ingest --mph): nodes.id.mph y edges.id.mph, hash perfecto mínimo id -> ordinal
+      que GraphReader usa en lugar de la binary search sobre *.id.lex (ver IdHash).
+     */
+    public void buildIdHashes() throws IOException {
+        IdHashBuilder.build(GraphReader.Dict.open(outDir, "nodes.id"), outFile("nodes.id.mph"));
+        IdHashBuilder.build(GraphReader.Dict.open(outDir, "edges.id"), outFile("edges.id.mph"));
+    }
+
+    /**
+      Reemplaza nodes.id.{str,lex,ord2pos} y edges.id.{str,lex,ord2pos} por nodes.id.fc / edges.id.fc
+      (front coding en bloques en orden lexicográfico; ver FrontCodedPool). Va al final: durante
+      el ingest el resolver y los índices usan el pool plano.
+     */
+    public void frontCodeIdPools() throws IOException {
+        FrontCodedPoolBuilder.build(nodesIdStr, nodesIdLex, outFile("nodes.id.fc"));
+        FrontCodedPoolBuilder.build(edgesIdStr, edgesIdLex, outFile("edges.id.fc"));
+        for (Path p : List.of(nodesIdStr, nodesIdLex, nodesIdOrd2Pos, edgesIdStr, edgesIdLex, edgesIdOrd2Pos)) {
+            Files.deleteIfExists(p);
+        }
+    }
+
+    /**
+      graph.stats (conteos por label, NDV y heavy hitters por propiedad, histogramas de grado,
+      tamaños de archivo; ver GraphStats). Va último: lee el outDir terminado.
+     */
+    public void writeStats() throws IOException {
+        GraphStatsBuilder.build(outDir);
+    }
+
+    // ==========================
+    // Ingesta paralela por chunks (PgdfChunks + ChunkPipeline).
+    // Cada chunk se codifica en un segmento temporal con ordinales/offsets locales y luego
+    // los segmentos se concatenan en orden, sumando las bases: resultado idéntico al secuencial.
+    // ==========================
+
+    /** Segmento temporal de un chunk: archivos propios + estado local. */
+    private static final class Segment implements Closeable {
+        final Path dir;
+        final IngestSession session = new IngestSession();
+        final Set<String> labels = new HashSet<>();
+        final Set<String> propNames = new HashSet<>();
+        long rows = 0;
+        int count = 0;
+
+        Segment() throws IOException { dir = Files.createTempDirectory("graphbin_seg_"); }
+
+        Path f(String name) { return dir.resolve(name); }
+        IngestSession.Sink sink(String name) throws IOException { return session.sink(f(name), 1<<16); }
+
+        @Override public void close() throws IOException {
+            session.close();
+            try (var files = Files.list(dir)) {
+                for (Path p : (Iterable<Path>) files::iterator) Files.deleteIfExists(p);
+            }
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    private static int window(int threads) { return Math.max(2, threads * 2); }
+
+    public void ingestNodesParallel(Path nodesPgdf, int threads) throws IOException {
+        startNodes();
+        ExecutorService pool = ChunkPipeline.newPool(threads);
+        try {
+            var chunks = PgdfChunks.split(nodesPgdf, PgdfChunks.defaultChunkBytes(), pool);
+            ChunkPipeline.run(chunks, pool, window(threads), c -> encodeNodeChunk(nodesPgdf, c), this::appendNodeSegment);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Segment encodeNodeChunk(Path file, PgdfChunks.Chunk c) throws IOException {
+        Segment seg = new Segment();
+        try {
+            var ids = seg.sink("ids");
+            var lens = seg.sink("lens");
+            var props = seg.sink("props");
+            var vals = seg.sink("propvals");
+            PgdfChunks.forEachRow(file, c, t -> {
+                if (!isNodeRow(t)) return;
+                try {
+                    seg.rows++;
+                    lens.writeInt(encodeNode(t, ids, props, vals, seg.labels, seg.propNames));
+                    seg.count++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            seg.session.close();
+            return seg;
+        } catch (IOException | RuntimeException e) {
+            closeQuietly(seg, e);
+            throw e;
+        }
+    }
+
+    /** Borra el segmento de un chunk que falló al codificarse (sin tapar el error original). */
+    private static void closeQuietly(Segment seg, Exception cause) {
+        try {
+            seg.close();
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    private void appendNodeSegment(Segment seg) throws IOException {
+        try (seg) {
+            var ids = session.sink(nodesIdStr);
+            long off = ids.position();
+            try (var is = new DataInputStream(new BufferedInputStream(Files.newInputStream(seg.f("lens")), 1<<16))) {
+                for (int i = 0; i < seg.count; i++) {
+                    int len = is.readInt();
+                    addId(nodeIdOff, nodeIdLen, off, len);
+                    off += len;
+                }
+            }
+            ids.append(seg.f("ids"));
+            session.sink(nodesPropsTmp).append(seg.f("props"));
+            session.sink(propValTmp).append(seg.f("propvals"));
+            labelSet.addAll(seg.labels);
+            propNameSet.addAll(seg.propNames);
+            nodeCount += seg.count;
+            session.addRows(seg.rows);
+        }
+    }
+
+    /** Equivalente paralelo de scan(edges, collectEdgeLabel). */
+    public void collectEdgeLabelsParallel(Path edgesPgdf, int threads) throws IOException {
+        ExecutorService pool = ChunkPipeline.newPool(threads);
+        try {
+            var chunks = PgdfChunks.split(edgesPgdf, PgdfChunks.defaultChunkBytes(), pool);
+            ChunkPipeline.<Set<String>>run(chunks, pool, window(threads), c -> {
+                Set<String> labels = new HashSet<>();
+                PgdfChunks.forEachRow(edgesPgdf, c, t -> {
+                    if (isEdgeRow(t)) labels.add(t.intern(t.header().label));
+                });
+                return labels;
+            }, labelSet::addAll);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    public void ingestEdgesParallel(Path edgesPgdf, int threads) throws IOException {
+        startEdges();
+        runEdgesParallel(edgesPgdf, threads);
+    }
+
+    /** Equivalente paralelo de startEdgesSinglePass + scan(edges, acceptEdge). */
+    public void ingestEdgesSinglePassParallel(Path edgesPgdf, int threads) throws IOException {
+        startEdgesSinglePass();
+        runEdgesParallel(edgesPgdf, threads);
+    }
+
+    private void runEdgesParallel(Path edgesPgdf, int threads) throws IOException {
+        ExecutorService pool = ChunkPipeline.newPool(threads);
+        try {
+            var chunks = PgdfChunks.split(edgesPgdf, PgdfChunks.defaultChunkBytes(), pool);
+            ChunkPipeline.run(chunks, pool, window(threads), c -> encodeEdgeChunk(edgesPgdf, c), this::appendEdgeSegment);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Segment encodeEdgeChunk(Path file, PgdfChunks.Chunk c) throws IOException {
+        Segment seg = new Segment();
+        try {
+            var lens = seg.sink("lens");
+            var out = new EdgeSinks(seg.sink("ids"), seg.sink("rec"), provisionalLabels != null ? null : seg.sink("off"),
+                    seg.sink("byLabel"), seg.sink("src"), seg.sink("dst"), seg.sink("adjOut"), seg.sink("adjIn"));
+            PgdfChunks.forEachRow(file, c, t -> {
+                if (!isEdgeRow(t)) return;
+                try {
+                    seg.rows++;
+                    int len = encodeEdge(t, seg.count, out);
+                    if (len < 0) return;
+                    lens.writeInt(len);
+                    seg.count++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            seg.session.close();
+            return seg;
+        } catch (IOException | RuntimeException e) {
+            closeQuietly(seg, e);
+            throw e;
+        }
+    }
+
+    private void appendEdgeSegment(Segment seg) throws IOException {
+        try (seg) {
+            var ids = session.sink(edgesIdStr);
+            var rec = session.sink(recTarget());
+            long idBase = ids.position();
+            long recBase = rec.position();
+            int ordBase = edgeCount;
+
+            try (var is = new DataInputStream(new BufferedInputStream(Files.newInputStream(seg.f("lens")), 1<<16))) {
+                long off = idBase;
+                for (int i = 0; i < seg.count; i++) {
+                    int len = is.readInt();
+                    addId(edgeIdOff, edgeIdLen, off, len);
+                    off += len;
+                }
+            }
+            // offsets de rec (LE u64) y ordinales de edgesByLabel son locales: sumar base
+            var offOut = offTarget();
+            if (offOut != null) {
+                try (var is = new DataInputStream(new BufferedInputStream(Files.newInputStream(seg.f("off")), 1<<16))) {
+                    for (int i = 0; i < seg.count; i++) offOut.writeLongLE(Long.reverseBytes(is.readLong()) + recBase);
+                }
+            }
+            var eb = session.sink(tmpEdgesByLabel, 1<<16);
+            try (var is = new DataInputStream(new BufferedInputStream(Files.newInputStream(seg.f("byLabel")), 1<<16))) {
+                for (int i = 0; i < seg.count; i++) {
+                    eb.writeInt(is.readInt());
+                    eb.writeInt(is.readInt() + ordBase);
+                }
+            }
+            ids.append(seg.f("ids"));
+            rec.append(seg.f("rec"));
+            session.sink(tmpSrcByLabel, 1<<16).append(seg.f("src"));
+            session.sink(tmpDstByLabel, 1<<16).append(seg.f("dst"));
+            edgeSinks.adjOut.append(seg.f("adjOut"));
+            edgeSinks.adjIn.append(seg.f("adjIn"));
+            edgeCount += seg.count;
+            session.addRows(seg.rows);
+        }
     }
 }
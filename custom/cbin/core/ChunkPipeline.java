@@ -0,0 +1,89 @@
+package cbin.core;
+
+import cbin.io.PgdfChunks;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+  Pipeline paralelo con merge ordenado:
+   - encode(chunk) corre en el pool de workers y produce un segmento independiente;
+   - append(segmento) corre en el hilo llamador, estrictamente en el orden de los chunks,
+     así los ordinales globales quedan deterministas (iguales a la ingesta secuencial).
+  Como máximo `window` segmentos en vuelo (acota disco/memoria temporal). Si algo falla, los
+  chunks que no empezaron se saltean y los segmentos ya codificados (Closeable) se cierran.
+ */
+public final class ChunkPipeline {
+
+    @FunctionalInterface
+    public interface Encoder<S> { S encode(PgdfChunks.Chunk chunk) throws IOException; }
+
+    @FunctionalInterface
+    public interface Appender<S> { void append(S segment) throws IOException; }
+
+    private ChunkPipeline() {}
+
+    public static <S> void run(List<PgdfChunks.Chunk> chunks, ExecutorService pool, int window,
+                               Encoder<S> encoder, Appender<S> appender) throws IOException {
+        Deque<Future<S>> inFlight = new ArrayDeque<>();
+        Iterator<PgdfChunks.Chunk> it = chunks.iterator();
+        AtomicBoolean failed = new AtomicBoolean();
+        boolean done = false;
+        try {
+            while (it.hasNext() || !inFlight.isEmpty()) {
+                while (it.hasNext() && inFlight.size() < Math.max(1, window)) {
+                    PgdfChunks.Chunk c = it.next();
+                    inFlight.addLast(pool.submit(() -> failed.get() ? null : encoder.encode(c)));
+                }
+                appender.append(get(inFlight.pollFirst()));
+            }
+            done = true;
+        } finally {
+            if (!done) {
+                failed.set(true);
+                discard(inFlight);
+            }
+        }
+    }
+
+    /** Espera los encoders en curso (los que no empezaron devuelven null) y cierra sus segmentos. */
+    private static <S> void discard(Deque<Future<S>> inFlight) {
+        for (Future<S> f : inFlight) {
+            try {
+                if (f.get() instanceof Closeable seg) seg.close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                inFlight.forEach(g -> g.cancel(true));
+                return;
+            } catch (ExecutionException | IOException e) {
+                // el encoder falló (limpia lo suyo) o no se pudo borrar: se sigue con el resto
+            }
+        }
+    }
+
+    private static <S> S get(Future<S> f) throws IOException {
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrumpido", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof RuntimeException re) throw re;
+            throw new IOException(cause);
+        }
+    }
+
+    /** Pool de tamaño fijo con hilos daemon. */
+    public static ExecutorService newPool(int threads) {
+        return Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, "cbin-ingest");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+}
@@ -0,0 +1,174 @@
+package cbin.core;
+
+import cbin.io.BinaryGraphFiles;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+  Construcción de diccionario con sort/merge externo y memoria acotada.
+  Entrada: archivo con un valor UTF-8 por línea (con repetidos), p.ej. propvals.tmp.
+   1) Se acumulan valores hasta llenar el presupuesto; se ordenan por bytes UTF-8 y se deduplican.
+      Si tras deduplicar queda mucho espacio libre se sigue acumulando en el mismo run.
+   2) Cada run lleno se escribe a un temporal [len:u32][bytes] ordenado y sin repetidos.
+   3) Merge k-way de los runs (con dedupe entre runs) directo a BinaryGraphFiles.writeDictionary.
+  Presupuesto por defecto: -Dcbin.dict.memMB (256 MB).
+ */
+public final class ExternalDictionaryBuilder {
+
+    private static final int ENTRY_OVERHEAD = 32;   // estimación header byte[] + referencia
+
+    private final long memBudget;
+
+    public ExternalDictionaryBuilder() { this(defaultBudget()); }
+
+    public ExternalDictionaryBuilder(long memBudgetBytes) {
+        this.memBudget = Math.max(1L << 16, memBudgetBytes);
+    }
+
+    public static long defaultBudget() {
+        return Long.getLong("cbin.dict.memMB", 256L) << 20;
+    }
+
+    /** Construye str/lex/ord2pos a partir de linesFile. Devuelve la cantidad de valores distintos. */
+    public int build(Path linesFile, Path strPath, Path lexPath, Path ord2posPath) throws IOException {
+        List<Path> runs = new ArrayList<>();
+        List<byte[]> cur = new ArrayList<>();
+        long used = 0L;
+        try {
+            try (var in = new BufferedInputStream(Files.newInputStream(linesFile), 1 << 20)) {
+                var line = new ByteArrayOutputStream(64);
+                int b;
+                boolean pending = false;
+                while (true) {
+                    b = in.read();
+                    if (b == '\n' || b < 0) {
+                        if (b >= 0 || pending) {
+                            byte[] v = line.toByteArray();
+                            cur.add(v);
+                            used += v.length + ENTRY_OVERHEAD;
+                            line.reset();
+                        }
+                        if (b < 0) break;
+                        pending = false;
+                        if (used >= memBudget) {
+                            sortUnique(cur);
+                            used = footprint(cur);
+                            // solo se vuelca si el dedupe no liberó al menos la mitad del presupuesto
+                            if (used >= memBudget / 2) {
+                                runs.add(spill(cur));
+                                cur.clear();
+                                used = 0L;
+                            }
+                        }
+                    } else {
+                        line.write(b);
+                        pending = true;
+                    }
+                }
+            }
+            sortUnique(cur);
+
+            if (runs.isEmpty()) {
+                return BinaryGraphFiles.writeDictionary(strPath, lexPath, ord2posPath, cur.iterator());
+            }
+            if (!cur.isEmpty()) runs.add(spill(cur));
+            cur.clear();
+            return merge(runs, strPath, lexPath, ord2posPath);
+        } finally {
+            for (Path r : runs) Files.deleteIfExists(r);
+        }
+    }
+
+    private static long footprint(List<byte[]> vals) {
+        long s = 0L;
+        for (byte[] v : vals) s += v.length + ENTRY_OVERHEAD;
+        return s;
+    }
+
+    /** Orden por bytes sin signo (= orden UTF-8 / code point) + dedupe in-place. */
+    private static void sortUnique(List<byte[]> vals) {
+        vals.sort(Arrays::compareUnsigned);
+        int w = 0;
+        for (int i = 0; i < vals.size(); i++) {
+            if (w == 0 || !Arrays.equals(vals.get(i), vals.get(w - 1))) {
+                if (w != i) vals.set(w, vals.get(i));
+                w++;
+            }
+        }
+        if (w < vals.size()) vals.subList(w, vals.size()).clear();
+    }
+
+    private static Path spill(List<byte[]> sorted) throws IOException {
+        Path run = Files.createTempFile("graphbin_", "_dict.run");
+        try (var os = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), 1 << 20))) {
+            for (byte[] v : sorted) {
+                os.writeInt(v.length);
+                os.write(v);
+            }
+        }
+        return run;
+    }
+
+    // ---- merge k-way ----
+
+    private static final class RunCursor implements Closeable {
+        final DataInputStream in;
+        byte[] head;
+        RunCursor(Path p) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(p), 1 << 16));
+            advance();
+        }
+        void advance() throws IOException {
+            try {
+                int len = in.readInt();
+                head = in.readNBytes(len);
+            } catch (EOFException eof) {
+                head = null;
+            }
+        }
+        @Override public void close() throws IOException { in.close(); }
+    }
+
+    private static int merge(List<Path> runs, Path strPath, Path lexPath, Path ord2posPath) throws IOException {
+        List<RunCursor> cursors = new ArrayList<>(runs.size());
+        try {
+            PriorityQueue<RunCursor> pq = new PriorityQueue<>(runs.size(), (a, b) -> Arrays.compareUnsigned(a.head, b.head));
+            for (Path r : runs) {
+                RunCursor c = new RunCursor(r);
+                cursors.add(c);
+                if (c.head != null) pq.add(c);
+            }
+            Iterator<byte[]> merged = new Iterator<>() {
+                byte[] last = null;
+                byte[] next = fetch();
+
+                private byte[] fetch() {
+                    try {
+                        while (!pq.isEmpty()) {
+                            RunCursor c = pq.poll();
+                            byte[] v = c.head;
+                            c.advance();
+                            if (c.head != null) pq.add(c);
+                            if (last == null || !Arrays.equals(v, last)) { last = v; return v; }
+                        }
+                        return null;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                @Override public boolean hasNext() { return next != null; }
+                @Override public byte[] next() {
+                    if (next == null) throw new NoSuchElementException();
+                    byte[] v = next;
+                    next = fetch();
+                    return v;
+                }
+            };
+            return BinaryGraphFiles.writeDictionary(strPath, lexPath, ord2posPath, merged);
+        } finally {
+            for (RunCursor c : cursors) c.close();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package cbin.core;
+
+import cbin.io.BinaryGraphFiles;
+import cbin.io.FrontCodedPool;
+import cbin.io.IngestSession;
+import cbin.io.MappedFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+  Construye <pool>.fc (formato en FrontCodedPool) recorriendo <pool>.lex en orden y leyendo los
+  bytes de <pool>.str. El rank (ordinal -> posición lex) y los offsets de bloque se acumulan en
+  IntArray / LongArray (modo -Dcbin.arrays) y se escriben antes y después de los bloques.
+ */
+public final class FrontCodedPoolBuilder {
+
+    private FrontCodedPoolBuilder() {}
+
+    public static void build(Path str, Path lex, Path out) throws IOException {
+        MappedFile pool = MappedFile.open(str), lx = MappedFile.open(lex);
+        int n = (int) (lx.size() / 12);
+        int block = FrontCodedPool.BLOCK;
+        try (IntArray rank = new IntArray(); LongArray blockOff = new LongArray(); IngestSession session = new IngestSession()) {
+            IngestSession.Sink d = session.sink(out);
+            for (int i = 0; i < n; i++) rank.add(0);
+            for (int i = 0; i < n; i++) rank.set(lx.getInt(12L * i + 8), i);
+
+            d.write(FrontCodedPool.MAGIC);
+            d.writeInt(n);
+            d.writeInt(block);
+            for (int i = 0; i < n; i++) d.writeInt(rank.get(i));
+
+            byte[] prev = new byte[64], cur = new byte[64];
+            int prevLen = 0;
+            for (int i = 0; i < n; i++) {
+                long e = 12L * i;
+                long off = Integer.toUnsignedLong(lx.getInt(e));
+                int len = lx.getInt(e + 4);
+                if (cur.length < len) cur = new byte[Math.max(len, cur.length * 2)];
+                pool.get(off, cur, 0, len);
+                if (i % block == 0) {
+                    blockOff.add(d.position());
+                    BinaryGraphFiles.VarInt.writeUnsigned(d, len);
+                    d.write(cur, 0, len);
+                } else {
+                    int shared = 0, max = Math.min(prevLen, len);
+                    while (shared < max && prev[shared] == cur[shared]) shared++;
+                    BinaryGraphFiles.VarInt.writeUnsigned(d, shared);
+                    BinaryGraphFiles.VarInt.writeUnsigned(d, len - shared);
+                    d.write(cur, shared, len - shared);
+                }
+                BinaryGraphFiles.VarInt.writeUnsigned(d, lx.getInt(e + 8));
+                byte[] t = prev; prev = cur; cur = t;
+                prevLen = len;
+            }
+            for (long b = 0; b < blockOff.size(); b++) d.writeLongLE(blockOff.get(b));
+        }
+    }
+}
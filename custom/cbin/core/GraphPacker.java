@@ -0,0 +1,87 @@
+package cbin.core;
+
+import cbin.io.IngestSession;
+import cbin.io.PackedGraph;
+import cbin.io.SegmentedGraph;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+  Empaqueta un outDir ya ingestado en un contenedor .cbin (formato en PackedGraph): reserva el
+  header, copia cada archivo (orden por nombre) alineado a PackedGraph.ALIGN calculando su CRC32C
+  en la misma pasada y al final escribe header + manifest al principio del archivo.
+  El directorio no se modifica. Un store compactado se empaqueta desde su único segmento; uno con
+  varios segmentos delta no: hay que compactarlo antes.
+ */
+public final class GraphPacker {
+
+    private GraphPacker() {}
+
+    public static void pack(Path dir, Path out) throws IOException {
+        dir = SegmentedGraph.singleSegment(dir);
+        List<Path> files = new ArrayList<>();
+        try (var list = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) list.sorted()::iterator) {
+                if (Files.isRegularFile(p) && !(Files.exists(out) && Files.isSameFile(p, out))) files.add(p);
+            }
+        }
+        List<String> names = files.stream().map(p -> p.getFileName().toString()).toList();
+        long header = PackedGraph.headerSize(names);
+
+        long[] offs = new long[files.size()], lens = new long[files.size()];
+        int[] crcs = new int[files.size()];
+        byte[] buf = new byte[1 << 20];
+        try (IngestSession session = new IngestSession()) {
+            IngestSession.Sink d = session.sink(out);
+            pad(d, PackedGraph.align(header));
+            for (int i = 0; i < files.size(); i++) {
+                offs[i] = d.position();
+                CRC32C crc = new CRC32C();
+                try (InputStream in = Files.newInputStream(files.get(i))) {
+                    for (int n; (n = in.read(buf)) > 0; ) {
+                        crc.update(buf, 0, n);
+                        d.write(buf, 0, n);
+                    }
+                }
+                lens[i] = d.position() - offs[i];
+                crcs[i] = (int) crc.getValue();
+                pad(d, PackedGraph.align(d.position()) - d.position());
+            }
+        }
+
+        ByteBuffer h = ByteBuffer.allocate((int) header);
+        h.put(PackedGraph.MAGIC);
+        h.putInt(PackedGraph.VERSION);
+        h.putInt((int) (size(dir.resolve("nodes.off")) / 8));
+        h.putInt((int) (size(dir.resolve("edges.off")) / 8));
+        h.putInt(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            byte[] name = names.get(i).getBytes(StandardCharsets.UTF_8);
+            h.putShort((short) name.length);
+            h.put(name);
+            h.putLong(Long.reverseBytes(offs[i]));
+            h.putLong(Long.reverseBytes(lens[i]));
+            h.putInt(crcs[i]);
+        }
+        h.flip();
+        try (FileChannel ch = FileChannel.open(out, StandardOpenOption.WRITE)) {
+            for (long p = 0; h.hasRemaining(); ) p += ch.write(h, p);
+        }
+    }
+
+    private static void pad(IngestSession.Sink d, long n) throws IOException {
+        for (long i = 0; i < n; i++) d.write(0);
+    }
+
+    private static long size(Path p) throws IOException {
+        return Files.exists(p) ? Files.size(p) : 0L;
+    }
+}
@@ -0,0 +1,128 @@
+package cbin.core;
+
+import cbin.io.GraphReader;
+import cbin.io.GraphStats;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+  Escribe graph.stats (formato en GraphStats) sobre un outDir ya terminado, abriéndolo con
+  GraphReader: nodos por label con una pasada por nodes.rec (solo el primer varint), aristas por
+  label y nodos / NDV / heavy hitters por propiedad de los count de los .dir (sin decodificar
+  posting lists) y los histogramas de grado de adj.*.off. Los tamaños de archivo se toman al
+  final, así que va después de los .mph / .fc.
+ */
+final class GraphStatsBuilder {
+
+    private GraphStatsBuilder() {}
+
+    static void build(Path outDir) throws IOException {
+        Path out = outDir.resolve("graph.stats");
+        Files.deleteIfExists(out);
+        GraphReader r = GraphReader.open(outDir);
+        try (var o = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(out), 1 << 16))) {
+            int nodes = r.nodeCount();
+            o.write(GraphStats.MAGIC);
+            o.writeInt(GraphStats.VERSION);
+            o.writeInt(nodes);
+            o.writeInt(r.edgeCount());
+
+            int[] nodeLabels = new int[r.labels().size()];
+            for (int ord = 0; ord < nodes; ord++) nodeLabels[r.nodeLabelId(ord)]++;
+            writeCounts(o, nodeLabels);
+
+            int[] edgeLabels = new int[r.labels().size()];
+            GraphReader.PostingIndex byLabel = r.edgesByLabel();
+            for (long e = 0; e < byLabel.keys(); e++) edgeLabels[(int) byLabel.key(e)] = byLabel.count(e);
+            writeCounts(o, edgeLabels);
+
+            writeProperties(o, r.nodesByProp());
+
+            writeDegrees(o, r.outAdjacency(), nodes);
+            writeDegrees(o, r.inAdjacency(), nodes);
+        }
+
+        // tamaños: todo el outDir menos graph.stats (ya cerrado; su tamaño no se conoce de antemano)
+        List<Path> files = new ArrayList<>();
+        try (var list = Files.list(outDir)) {
+            for (Path p : (Iterable<Path>) list.sorted()::iterator) {
+                if (Files.isRegularFile(p) && !p.equals(out)) files.add(p);
+            }
+        }
+        try (var o = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(out, StandardOpenOption.APPEND), 1 << 16))) {
+            o.writeInt(files.size());
+            for (Path p : files) {
+                byte[] name = p.getFileName().toString().getBytes(StandardCharsets.UTF_8);
+                o.writeShort(name.length);
+                o.write(name);
+                o.writeLong(Files.size(p));
+            }
+        }
+    }
+
+    /** [L:u32] [id:u32][count:u32] * L, solo los ids con count > 0. */
+    private static void writeCounts(DataOutputStream o, int[] counts) throws IOException {
+        int n = 0;
+        for (int c : counts) if (c > 0) n++;
+        o.writeInt(n);
+        for (int id = 0; id < counts.length; id++) {
+            if (counts[id] == 0) continue;
+            o.writeInt(id);
+            o.writeInt(counts[id]);
+        }
+    }
+
+    /**
+      Las entradas (propNameId, valueId) de idx.nodesByProp.dir están ordenadas: cada propiedad
+      es un tramo contiguo. nodes = suma de los count, ndv = entradas del tramo, heavy hitters =
+      los HEAVY_HITTERS de más count (a igual count, menor valueId).
+     */
+    private static void writeProperties(DataOutputStream o, GraphReader.PostingIndex idx) throws IOException {
+        List<long[]> props = new ArrayList<>();             // [pn, nodes, ndv, desde, hasta)
+        for (long e = 0, keys = idx.keys(); e < keys; ) {
+            int pn = (int) (idx.key(e) >>> 32);
+            long from = e, total = 0;
+            for (; e < keys && (int) (idx.key(e) >>> 32) == pn; e++) total += idx.count(e);
+            props.add(new long[]{pn, total, e - from, from, e});
+        }
+        o.writeInt(props.size());
+        for (long[] p : props) {
+            // heap de mínimos acotado: la raíz es el peor de los que quedan
+            Comparator<Long> order = Comparator.<Long>comparingInt(idx::count).reversed()
+                    .thenComparingInt(e -> (int) idx.key(e));
+            PriorityQueue<Long> heap = new PriorityQueue<>(order.reversed());
+            for (long e = p[3]; e < p[4]; e++) {
+                heap.add(e);
+                if (heap.size() > GraphStats.HEAVY_HITTERS) heap.poll();
+            }
+            Long[] top = heap.toArray(new Long[0]);
+            Arrays.sort(top, order);
+
+            o.writeInt((int) p[0]);
+            o.writeInt((int) p[1]);
+            o.writeInt((int) p[2]);
+            o.writeInt(top.length);
+            for (long e : top) {
+                o.writeInt((int) idx.key(e));
+                o.writeInt(idx.count(e));
+            }
+        }
+    }
+
+    /** [B:u32][max:u32] count:u32 * B con B = DEGREE_BUCKETS (ver GraphStats.bucket). */
+    private static void writeDegrees(DataOutputStream o, GraphReader.Adjacency adj, int nodes) throws IOException {
+        int[] hist = new int[GraphStats.DEGREE_BUCKETS];
+        int max = 0;
+        for (int v = 0; v < nodes; v++) {
+            int d = adj.degree(v);
+            hist[GraphStats.bucket(d)]++;
+            max = Math.max(max, d);
+        }
+        o.writeInt(hist.length);
+        o.writeInt(max);
+        for (int c : hist) o.writeInt(c);
+    }
+}
@@ -0,0 +1,117 @@
+package cbin.core;
+
+import cbin.io.GraphReader;
+import cbin.io.IdHash;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+  Construye <pool>.mph (formato en IdHash) a partir del pool ya escrito (str + ord2pos o .fc).
+  BBHash: en el nivel l los ids que quedan se reparten en GAMMA * restantes bits; los que caen
+  solos en su bit quedan ubicados (índice = rank global del bit), el resto pasa al nivel
+  siguiente. Tras MAX_LEVELS los que sobran (muy pocos) van al fallback ordenado por hash.
+  Cada id se lee y hashea una sola vez; hashes y ordinales pendientes viven en LongArray /
+  IntArray (modo -Dcbin.arrays) y se compactan nivel a nivel. Los bits de cada nivel van en
+  heap (GAMMA bits por id pendiente, más otros tantos de colisiones mientras se arma).
+ */
+public final class IdHashBuilder {
+
+    private IdHashBuilder() {}
+
+    public static void build(GraphReader.Dict keys, Path out) throws IOException {
+        int n = keys.size();
+        try (LongArray hashes = new LongArray(); IntArray pending = new IntArray(); IntArray ords = new IntArray()) {
+            for (int ord = 0; ord < n; ord++) {
+                byte[] key = keys.bytes(ord);
+                hashes.add(IdHash.hash(key, 0, key.length));
+                pending.add(ord);
+                ords.add(0);
+            }
+
+            List<long[]> levels = new ArrayList<>();
+            long remaining = n, placed = 0;
+            while (remaining > 0 && levels.size() < IdHash.MAX_LEVELS) {
+                int l = levels.size();
+                long bits = Math.max(64, ((long) Math.ceil(IdHash.GAMMA * remaining) + 63) & ~63L);
+                long[] hit = new long[(int) (bits >>> 6)], col = new long[hit.length];
+                for (long i = 0; i < remaining; i++) {
+                    long p = IdHash.position(hashes.get(i), l, bits);
+                    int w = (int) (p >>> 6);
+                    long m = 1L << p;
+                    if ((hit[w] & m) != 0) col[w] |= m; else hit[w] |= m;
+                }
+                for (int w = 0; w < hit.length; w++) hit[w] &= ~col[w];
+                col = null;
+
+                // rank dentro del nivel: bits en 1 antes de cada palabra
+                int[] before = new int[hit.length];
+                int ones = 0;
+                for (int w = 0; w < hit.length; w++) { before[w] = ones; ones += Long.bitCount(hit[w]); }
+
+                long kept = 0;
+                for (long i = 0; i < remaining; i++) {
+                    long h = hashes.get(i);
+                    long p = IdHash.position(h, l, bits);
+                    int w = (int) (p >>> 6);
+                    if ((hit[w] & (1L << p)) != 0) {
+                        ords.set(placed + before[w] + Long.bitCount(hit[w] & ((1L << p) - 1)), pending.get(i));
+                    } else {
+                        hashes.set(kept, h);
+                        pending.set(kept, pending.get(i));
+                        kept++;
+                    }
+                }
+                levels.add(hit);
+                placed += ones;
+                remaining = kept;
+            }
+
+            // fallback: (hash, ord) ordenados por hash sin signo
+            long[][] fallback = new long[(int) remaining][];
+            for (int i = 0; i < remaining; i++) fallback[i] = new long[]{hashes.get(i), pending.get(i)};
+            Arrays.sort(fallback, (a, b) -> Long.compareUnsigned(a[0], b[0]));
+
+            write(out, n, levels, fallback, ords, placed);
+        }
+    }
+
+    private static void write(Path out, int n, List<long[]> levels, long[][] fallback, IntArray ords, long placed) throws IOException {
+        try (DataOutputStream d = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(out), 1 << 16))) {
+            d.write(IdHash.MAGIC);
+            d.writeInt(n);
+            d.writeInt(levels.size());
+            d.writeInt(fallback.length);
+            long bitOff = 0;
+            for (long[] level : levels) {
+                long bits = 64L * level.length;
+                writeLongLE(d, bitOff);
+                writeLongLE(d, bits);
+                bitOff += bits;
+            }
+            for (long[] level : levels) for (long w : level) d.writeLong(w);
+
+            // ranks: bits en 1 antes de cada bloque de 8 palabras (+ total al final)
+            long ones = 0, word = 0;
+            for (long[] level : levels) {
+                for (long w : level) {
+                    if ((word++ & 7) == 0) d.writeInt((int) ones);
+                    ones += Long.bitCount(w);
+                }
+            }
+            if ((word & 7) == 0) d.writeInt((int) ones);
+
+            for (long[] e : fallback) { d.writeLong(e[0]); d.writeInt((int) e[1]); }
+            for (long i = 0; i < placed; i++) d.writeInt(ords.get(i));
+        }
+    }
+
+    private static void writeLongLE(DataOutputStream d, long v) throws IOException {
+        d.writeLong(Long.reverseBytes(v));
+    }
+}
@@ -0,0 +1,38 @@
+package cbin.core;
+
+/** Array creciente de int sin boxing (ver PagedArray para los modos de almacenamiento). */
+public final class IntArray extends PagedArray {
+
+    public IntArray() { this(defaultStorage()); }
+
+    public IntArray(Storage storage) { super(storage, 2); }
+
+    public void add(int v) {
+        ensure(size);
+        page(size).putInt(inPage(size), v);
+        size++;
+    }
+
+    public int get(long i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException("index " + i + " size " + size);
+        return page(i).getInt(inPage(i));
+    }
+
+    public void set(long i, int v) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException("index " + i + " size " + size);
+        page(i).putInt(inPage(i), v);
+    }
+
+    public void swap(long i, long j) {
+        int a = get(i);
+        set(i, get(j));
+        set(j, a);
+    }
+
+    /** Array con 0..n-1 (identidad), útil para ordenar ordinales. */
+    public static IntArray identity(int n) {
+        IntArray a = new IntArray();
+        for (int i = 0; i < n; i++) a.add(i);
+        return a;
+    }
+}
@@ -0,0 +1,31 @@
+package cbin.core;
+
+/** Array creciente de long sin boxing (ver PagedArray para los modos de almacenamiento). */
+public final class LongArray extends PagedArray {
+
+    public LongArray() { this(defaultStorage()); }
+
+    public LongArray(Storage storage) { super(storage, 3); }
+
+    public void add(long v) {
+        ensure(size);
+        page(size).putLong(inPage(size), v);
+        size++;
+    }
+
+    public long get(long i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException("index " + i + " size " + size);
+        return page(i).getLong(inPage(i));
+    }
+
+    public void set(long i, long v) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException("index " + i + " size " + size);
+        page(i).putLong(inPage(i), v);
+    }
+
+    public void swap(long i, long j) {
+        long a = get(i);
+        set(i, get(j));
+        set(j, a);
+    }
+}
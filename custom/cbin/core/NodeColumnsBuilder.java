@@ -0,0 +1,73 @@
+package cbin.core;
+
+import cbin.io.PostingIndexBuilder;
+
+import java.io.*;
+import java.nio.file.*;
+
+/**
+  Arma nodes.col.dir y nodes.col.<propNameId> (formato en NodeColumns). materializeNodesRec deja
+  un temporal [propNameId:u32][ord:u32][valueId:u32] por cada valor no vacío; el sort externo de
+  PostingIndexBuilder (key = propNameId, ord) lo agrupa por propiedad en orden de ordinal y cada
+  columna se escribe en una sola pasada (los valueIds en orden; el bitmap, N/8 bytes, en heap
+  hasta el final de la columna). materializeNodesRec deja un valor por nombre y nodo (el último de
+  la fila); si igual llegan dos para un ordinal, queda el último que llega.
+ */
+final class NodeColumnsBuilder {
+
+    private NodeColumnsBuilder() {}
+
+    static void build(Path tmpTriples, int nodeCount, Path outDir) throws IOException {
+        try (var dir = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(outDir.resolve("nodes.col.dir")), 1 << 16))) {
+            Column[] cur = {null};
+            new PostingIndexBuilder(2).sort(tmpTriples, (key, valueId) -> {
+                int pn = (int) (key >>> 32), ord = (int) key;
+                if (cur[0] != null && cur[0].pn != pn) cur[0].finish(dir);
+                if (cur[0] == null || cur[0].pn != pn) cur[0] = new Column(outDir, pn, nodeCount);
+                cur[0].add(ord, valueId);
+            });
+            if (cur[0] != null) cur[0].finish(dir);
+        }
+    }
+
+    /** Columna en curso: valueIds escritos en orden de ordinal (0 en los huecos); el último queda pendiente. */
+    private static final class Column {
+        final int pn, nodes;
+        final DataOutputStream out;
+        final long[] present;
+        int next, count;
+        int pendOrd = -1, pendVal;
+
+        Column(Path outDir, int pn, int nodes) throws IOException {
+            this.pn = pn;
+            this.nodes = nodes;
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(outDir.resolve("nodes.col." + pn)), 1 << 20));
+            this.present = new long[(nodes + 63) >>> 6];
+        }
+
+        void add(int ord, int valueId) throws IOException {
+            if (ord != pendOrd) flush();
+            pendOrd = ord;                              // mismo ordinal: el último reemplaza al anterior
+            pendVal = valueId;
+        }
+
+        private void flush() throws IOException {
+            if (pendOrd < 0) return;
+            for (; next < pendOrd; next++) out.writeInt(0);
+            out.writeInt(pendVal);
+            next = pendOrd + 1;
+            present[pendOrd >>> 6] |= 1L << pendOrd;
+            count++;
+        }
+
+        void finish(DataOutputStream dir) throws IOException {
+            try (out) {
+                flush();
+                for (; next < nodes; next++) out.writeInt(0);
+                for (long w : present) out.writeLong(w);
+            }
+            dir.writeInt(pn);
+            dir.writeInt(count);
+        }
+    }
+}
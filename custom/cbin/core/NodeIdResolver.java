@@ -0,0 +1,119 @@
+package cbin.core;
+
+import cbin.io.DictionaryCache;
+import cbin.io.MappedFile;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Arrays;
+
+/**
+  nodeId -> ordinal para la pasada de aristas, construido una sola vez tras buildNodesIdLex.
+   - Modo hash: tabla open-addressing de int (ordinal) sobre el pool nodes.id.str mmapeado
+     (MappedFile: offsets long, el pool puede pasar de 2 GB);
+     los ids no se guardan como String, se comparan contra el pool usando off/len.
+   - Si la tabla no cabe en el presupuesto: binary search sobre nodes.id.lex + pool mmapeados.
+  Presupuesto por defecto: -Dcbin.resolver.memMB (512 MB).
+ */
+public final class NodeIdResolver {
+
+    private static final int EMPTY = -1;
+
+    private final MappedFile pool;
+    private final LongArray off;
+    private final IntArray len;
+    private final int n;
+    private int[] slots;
+    private int mask;
+    private MappedFile lexMap;
+
+    private NodeIdResolver(MappedFile pool, LongArray off, IntArray len, int n) {
+        this.pool = pool; this.off = off; this.len = len; this.n = n;
+    }
+
+    public static long defaultBudget() {
+        return Long.getLong("cbin.resolver.memMB", 512L) << 20;
+    }
+
+    public static NodeIdResolver build(MappedFile pool, LongArray off, IntArray len, int n, Path lex) throws IOException {
+        return build(pool, off, len, n, lex, defaultBudget());
+    }
+
+    public static NodeIdResolver build(MappedFile pool, LongArray off, IntArray len, int n, Path lex, long memBudget) throws IOException {
+        NodeIdResolver r = new NodeIdResolver(pool, off, len, n);
+        long cap = Long.highestOneBit(Math.max(4L, 2L * n) - 1) << 1;   // >= 2n, potencia de 2
+        if (cap <= (1 << 30) && cap * 4 <= memBudget) {
+            r.buildHash((int) cap);
+        } else {
+            r.lexMap = MappedFile.open(lex);
+        }
+        return r;
+    }
+
+    public boolean inMemory() { return slots != null; }
+
+    private void buildHash(int cap) {
+        slots = new int[cap];
+        Arrays.fill(slots, EMPTY);
+        mask = cap - 1;
+        for (int ord = 0; ord < n; ord++) {
+            long o = off.get(ord);
+            int l = len.get(ord);
+            int s = DictionaryCache.hash(pool, o, l) & mask;
+            while (true) {
+                int e = slots[s];
+                if (e == EMPTY) { slots[s] = ord; break; }
+                // id repetido: se queda el primer ordinal
+                if (equalsPool(e, o, l)) break;
+                s = (s + 1) & mask;
+            }
+        }
+    }
+
+    private boolean equalsPool(int ord, long o, int l) {
+        if (len.get(ord) != l) return false;
+        long eo = off.get(ord);
+        for (int i = 0; i < l; i++) if (pool.get(eo + i) != pool.get(o + i)) return false;
+        return true;
+    }
+
+    public int ordinalOf(String nodeId) {
+        return ordinalOf(nodeId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public int ordinalOf(byte[] key) {
+        return ordinalOf(key, 0, key.length);
+    }
+
+    /** Ordinal del nodo cuyo id son los bytes key[from, from+klen), o -1 si no existe. */
+    public int ordinalOf(byte[] key, int from, int klen) {
+        if (slots != null) {
+            int s = DictionaryCache.hash(key, from, klen) & mask;
+            while (true) {
+                int e = slots[s];
+                if (e == EMPTY) return -1;
+                if (len.get(e) == klen && equalsKey(off.get(e), key, from, klen)) return e;
+                s = (s + 1) & mask;
+            }
+        }
+        int lo = 0, hi = n - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long base = mid * 12L;
+            int cmp = compare(Integer.toUnsignedLong(lexMap.getInt(base)), lexMap.getInt(base + 4), key, from, klen);
+            if (cmp == 0) return lexMap.getInt(base + 8);
+            if (cmp < 0) lo = mid + 1; else hi = mid - 1;
+        }
+        return -1;
+    }
+
+    private boolean equalsKey(long o, byte[] key, int from, int klen) {
+        for (int i = 0; i < klen; i++) if (pool.get(o + i) != key[from + i]) return false;
+        return true;
+    }
+
+    private int compare(long o, int l, byte[] key, int from, int klen) {
+        return pool.compare(o, l, key, from, klen);
+    }
+}
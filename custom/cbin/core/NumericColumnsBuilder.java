@@ -0,0 +1,150 @@
+package cbin.core;
+
+import cbin.io.NumericColumns;
+import cbin.io.PostingIndexBuilder;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+  Arma nodes.num.dir / .col / .rng (formato en NumericColumns) durante materializeNodesRec.
+  accept() recibe cada (propiedad, ordinal, valor) en orden de ordinal, uno por nombre y nodo
+  (materializeNodesRec ya dejó el último si el nombre se repite en la fila). Los valores que
+  parsean como long canónico (ver parse) van a un temporal en el formato del sort externo de
+  PostingIndexBuilder (keyInts = 2), partidos en dos registros: [propNameId][2*ord][32 bits altos]
+  y [propNameId][2*ord+1][32 bits bajos]; el primer valor no vacío que no parsea descarta la
+  propiedad. build() ordena el temporal una vez (queda
+  agrupado por propiedad y en orden de ordinal), escribe cada columna en una sola pasada junto con
+  un run (value, ord) por propiedad y después ordena cada run por valor para el .rng.
+ */
+final class NumericColumnsBuilder implements Closeable {
+
+    private static final byte NUMERIC = 1, TEXT = 2;
+
+    private final Path tmp = Files.createTempFile("graphbin_", "_nodes.num.tmp");
+    private final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16));
+    private final byte[] state;
+
+    NumericColumnsBuilder(int propNames) throws IOException {
+        this.state = new byte[propNames];
+    }
+
+    /** Valor (bytes UTF-8, ya en minúsculas) de la propiedad pn del nodo ord. Vacío = sin valor. */
+    void accept(int pn, int ord, byte[] val) throws IOException {
+        if (val.length == 0 || state[pn] == TEXT) return;
+        long v = parse(val);
+        if (v == NumericColumns.NULL) {
+            state[pn] = TEXT;
+            return;
+        }
+        state[pn] = NUMERIC;
+        out.writeInt(pn);
+        out.writeInt(2 * ord);
+        out.writeInt((int) (v >>> 32));
+        out.writeInt(pn);
+        out.writeInt(2 * ord + 1);
+        out.writeInt((int) v);
+    }
+
+    /**
+      Entero decimal en forma canónica ("-" opcional, sin "+" ni ceros a la izquierda, "0" sin
+      signo), o NULL si no lo es (o no entra: NULL queda reservado). "07" o "+7" son otro string
+      en dict.propval / idx.nodesByProp, así que dejan la propiedad como texto.
+     */
+    static long parse(byte[] b) {
+        int i = 0, n = b.length;
+        boolean neg = n > 0 && b[0] == '-';
+        if (neg) i++;
+        if (i == n || n - i > 18) return NumericColumns.NULL;
+        if (b[i] == '0' && (n - i > 1 || neg)) return NumericColumns.NULL;
+        long v = 0;
+        for (; i < n; i++) {
+            int d = b[i] - '0';
+            if (d < 0 || d > 9) return NumericColumns.NULL;
+            v = v * 10 + d;
+        }
+        return neg ? -v : v;
+    }
+
+    void build(int nodeCount, Path dirPath, Path colPath, Path rngPath) throws IOException {
+        out.close();
+        List<Column> cols = new ArrayList<>();
+        try {
+            try (var col = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(colPath), 1 << 20))) {
+                Column[] cur = {null};
+                long[] high = {0};
+                new PostingIndexBuilder(2).sort(tmp, (key, half) -> {
+                    int pn = (int) (key >>> 32), slot = (int) key;
+                    if (state[pn] != NUMERIC) return;
+                    if ((slot & 1) == 0) {
+                        high[0] = (long) half << 32;
+                        return;
+                    }
+                    if (cur[0] != null && cur[0].pn != pn) cur[0].finish(col, nodeCount);
+                    if (cur[0] == null || cur[0].pn != pn) cols.add(cur[0] = new Column(pn));
+                    cur[0].add(col, slot >>> 1, high[0] | (half & 0xFFFFFFFFL));
+                });
+                if (cur[0] != null) cur[0].finish(col, nodeCount);
+            }
+
+            try (var dir = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(dirPath), 1 << 16));
+                 var rng = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(rngPath), 1 << 20))) {
+                long colOff = 0, rngOff = 0;
+                for (Column c : cols) {
+                    new PostingIndexBuilder(2).sort(c.run, (v, ord) -> { rng.writeLong(v); rng.writeInt(ord); });
+                    Files.deleteIfExists(c.run);
+
+                    dir.writeInt(c.pn);
+                    dir.writeInt(c.count);
+                    dir.writeLong(Long.reverseBytes(colOff));
+                    dir.writeLong(Long.reverseBytes(rngOff));
+                    dir.writeLong(c.min);
+                    dir.writeLong(c.max);
+                    colOff += 8L * nodeCount;
+                    rngOff += 12L * c.count;
+                }
+            }
+        } finally {
+            for (Column c : cols) Files.deleteIfExists(c.run);
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /** Columna en curso: valores escritos en orden de ordinal (NULL en los huecos) + run (value, ord). */
+    private static final class Column {
+        final int pn;
+        final Path run;
+        final DataOutputStream r;
+        long min = Long.MAX_VALUE, max = Long.MIN_VALUE;
+        int next, count;
+
+        Column(int pn) throws IOException {
+            this.pn = pn;
+            this.run = Files.createTempFile("graphbin_", "_nodes.num.run");
+            this.r = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run), 1 << 16));
+        }
+
+        void add(DataOutputStream col, int ord, long v) throws IOException {
+            for (; next < ord; next++) col.writeLong(NumericColumns.NULL);
+            col.writeLong(v);
+            next = ord + 1;
+            r.writeLong(v);
+            r.writeInt(ord);
+            min = Math.min(min, v);
+            max = Math.max(max, v);
+            count++;
+        }
+
+        void finish(DataOutputStream col, int nodes) throws IOException {
+            r.close();
+            for (; next < nodes; next++) col.writeLong(NumericColumns.NULL);
+        }
+    }
+
+    @Override public void close() throws IOException {
+        out.close();
+        Files.deleteIfExists(tmp);
+    }
+}
@@ -0,0 +1,105 @@
+package cbin.core;
+
+import cbin.io.MappedFile;
+
+/**
+  Ordenamiento in-place de ordinales (IntArray) sin boxing ni Comparator.
+  Se usa para construir *.id.lex: compara los bytes UTF-8 directamente desde el pool
+  (mmapeado) usando las tablas off/len, sin materializar Strings.
+  Empates por ordinal -> mismo resultado que un sort estable sobre 0..n-1.
+ */
+public final class OrdinalSort {
+
+    private OrdinalSort() {}
+
+    @FunctionalInterface
+    public interface OrdComparator {
+        int compare(int ordA, int ordB);
+    }
+
+    /** Orden lexicográfico de bytes UTF-8 (= orden por code point) y luego por ordinal. */
+    public static OrdComparator byPool(MappedFile pool, LongArray off, IntArray len) {
+        return (a, b) -> {
+            int c = compareUtf8(pool, off.get(a), len.get(a), off.get(b), len.get(b));
+            return c != 0 ? c : Integer.compare(a, b);
+        };
+    }
+
+    public static int compareUtf8(MappedFile pool, long offA, int lenA, long offB, int lenB) {
+        int l = Math.min(lenA, lenB);
+        for (int i = 0; i < l; i++) {
+            int ca = pool.get(offA + i) & 0xFF;
+            int cb = pool.get(offB + i) & 0xFF;
+            if (ca != cb) return Integer.compare(ca, cb);
+        }
+        return Integer.compare(lenA, lenB);
+    }
+
+    public static void sort(IntArray a, OrdComparator cmp) {
+        long n = a.size();
+        if (n < 2) return;
+        int depth = 2 * (64 - Long.numberOfLeadingZeros(n));
+        introSort(a, 0, n - 1, depth, cmp);
+    }
+
+    // ---- introsort: quicksort (mediana de 3) + heapsort de respaldo + inserción en rangos chicos ----
+
+    private static void introSort(IntArray a, long lo, long hi, int depth, OrdComparator cmp) {
+        while (hi - lo > 16) {
+            if (depth-- == 0) { heapSort(a, lo, hi, cmp); return; }
+            long p = partition(a, lo, hi, cmp);
+            // recursión sobre el lado menor para acotar la pila
+            if (p - lo < hi - p) { introSort(a, lo, p, depth, cmp); lo = p + 1; }
+            else                 { introSort(a, p + 1, hi, depth, cmp); hi = p; }
+        }
+        insertion(a, lo, hi, cmp);
+    }
+
+    private static long partition(IntArray a, long lo, long hi, OrdComparator cmp) {
+        long mid = (lo + hi) >>> 1;
+        if (cmp.compare(a.get(mid), a.get(lo)) < 0) a.swap(mid, lo);
+        if (cmp.compare(a.get(hi), a.get(lo)) < 0) a.swap(hi, lo);
+        if (cmp.compare(a.get(hi), a.get(mid)) < 0) a.swap(hi, mid);
+        int pivot = a.get(mid);
+        long i = lo - 1, j = hi + 1;
+        while (true) {
+            do { i++; } while (cmp.compare(a.get(i), pivot) < 0);
+            do { j--; } while (cmp.compare(a.get(j), pivot) > 0);
+            if (i >= j) return j;
+            a.swap(i, j);
+        }
+    }
+
+    private static void insertion(IntArray a, long lo, long hi, OrdComparator cmp) {
+        for (long i = lo + 1; i <= hi; i++) {
+            int v = a.get(i);
+            long j = i - 1;
+            while (j >= lo && cmp.compare(a.get(j), v) > 0) {
+                a.set(j + 1, a.get(j));
+                j--;
+            }
+            a.set(j + 1, v);
+        }
+    }
+
+    private static void heapSort(IntArray a, long lo, long hi, OrdComparator cmp) {
+        long n = hi - lo + 1;
+        for (long i = n / 2 - 1; i >= 0; i--) siftDown(a, lo, i, n, cmp);
+        for (long end = n - 1; end > 0; end--) {
+            a.swap(lo, lo + end);
+            siftDown(a, lo, 0, end, cmp);
+        }
+    }
+
+    private static void siftDown(IntArray a, long base, long i, long n, OrdComparator cmp) {
+        while (true) {
+            long l = 2 * i + 1;
+            if (l >= n) return;
+            long m = l;
+            if (l + 1 < n && cmp.compare(a.get(base + l + 1), a.get(base + l)) > 0) m = l + 1;
+            if (cmp.compare(a.get(base + m), a.get(base + i)) <= 0) return;
+            a.swap(base + i, base + m);
+            i = m;
+        }
+    }
+}
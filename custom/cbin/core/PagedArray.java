@@ -0,0 +1,105 @@
+package cbin.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+  Base de los arrays primitivos crecientes (IntArray / LongArray).
+  Los datos viven en páginas de 4 MB que pueden estar:
+   - HEAP     : ByteBuffer en heap
+   - OFF_HEAP : ByteBuffer directo (fuera del heap de Java)
+   - SPILL    : páginas mmapeadas de un archivo temporal (el SO decide qué queda en RAM)
+  El modo por defecto se toma de -Dcbin.arrays=heap|offheap|spill.
+ */
+public abstract class PagedArray implements Closeable {
+
+    public enum Storage { HEAP, OFF_HEAP, SPILL }
+
+    static final int PAGE_SHIFT = 22;           // 4 MB por página
+    static final int PAGE_BYTES = 1 << PAGE_SHIFT;
+
+    private final Storage storage;
+    private final int elemShift;                // log2(bytes por elemento)
+    private ByteBuffer[] pages = new ByteBuffer[8];   // null = cerrado
+    private int pageCount = 0;
+    private FileChannel spill;
+    private Path spillPath;
+    protected long size = 0L;
+
+    PagedArray(Storage storage, int elemShift) {
+        this.storage = storage;
+        this.elemShift = elemShift;
+    }
+
+    public static Storage defaultStorage() {
+        String s = System.getProperty("cbin.arrays", "heap").toLowerCase(Locale.ROOT);
+        return switch (s) {
+            case "offheap", "off_heap", "direct" -> Storage.OFF_HEAP;
+            case "spill", "mmap" -> Storage.SPILL;
+            default -> Storage.HEAP;
+        };
+    }
+
+    public long size() { return size; }
+    public Storage storage() { return storage; }
+
+    /** Página que contiene el elemento i (debe existir). */
+    final ByteBuffer page(long i) {
+        return pages[(int) ((i << elemShift) >>> PAGE_SHIFT)];
+    }
+
+    /** Posición en bytes del elemento i dentro de su página. */
+    final int inPage(long i) {
+        return (int) ((i << elemShift) & (PAGE_BYTES - 1));
+    }
+
+    /** Asegura capacidad para el elemento i. */
+    final void ensure(long i) {
+        if (pages == null) throw new IllegalStateException(getClass().getSimpleName() + " cerrado");
+        int need = (int) ((i << elemShift) >>> PAGE_SHIFT) + 1;
+        while (pageCount < need) {
+            if (pageCount == pages.length) pages = Arrays.copyOf(pages, pages.length * 2);
+            pages[pageCount] = allocate(pageCount);
+            pageCount++;
+        }
+    }
+
+    private ByteBuffer allocate(int pageIdx) {
+        try {
+            ByteBuffer bb = switch (storage) {
+                case HEAP -> ByteBuffer.allocate(PAGE_BYTES);
+                case OFF_HEAP -> ByteBuffer.allocateDirect(PAGE_BYTES);
+                case SPILL -> {
+                    if (spill == null) {
+                        spillPath = Files.createTempFile("graphbin_", "_array.spill");
+                        spill = FileChannel.open(spillPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                    }
+                    yield spill.map(FileChannel.MapMode.READ_WRITE, (long) pageIdx * PAGE_BYTES, PAGE_BYTES);
+                }
+            };
+            return bb.order(ByteOrder.nativeOrder());
+        } catch (IOException e) {
+            throw new RuntimeException("No se pudo reservar página de array (" + storage + ")", e);
+        }
+    }
+
+    public void clear() { size = 0L; }
+
+    /** Libera las páginas; después add falla con IllegalStateException y get con índice fuera de rango. */
+    @Override public void close() throws IOException {
+        pages = null;
+        pageCount = 0;
+        size = 0L;
+        if (spill != null) {
+            spill.close();
+            Files.deleteIfExists(spillPath);
+            spill = null;
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package cbin.core;
+
+import cbin.io.GraphReader;
+import cbin.io.PgdfReader;
+import cbin.io.SegmentedGraph;
+import com.pgdf.PgdfTokenizer;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+  Store con segmentos delta estilo LSM sobre el formato WORM (lectura: SegmentedGraph).
+   - ingestDelta: ingesta un lote PGDF (y listas de ids a borrar) en delta.NNNNNN/ con sus propios
+     diccionarios e índices. Los extremos de aristas que no están en el lote entran como stubs
+     (nodos con label STUB_LABEL al final de los ordinales, ver segment.meta) solo si son nodos
+     vivos de los segmentos anteriores; los demás quedan sin resolver, igual que en un ingest.
+     Un extremo que el mismo lote borra (y no vuelve a definir) también entra como stub, pero
+     muerto: la arista no aparece en listados, vecinos ni compact (ver SegmentedGraph).
+     El segmento se arma en un directorio .tmp, se mueve y recién entonces se agrega al manifest.
+   - compact: vuelca la vista viva (versión más nueva de cada nodo / arista) a PGDF temporales,
+     los ingesta como una base nueva base.NNNNNN/ (verificando que tenga los mismos nodos y
+     aristas que la vista) y reemplaza en el manifest los segmentos compactados; los deltas
+     agregados mientras tanto se conservan.
+   - Deltas y base compactada usan el layout de ids del segmento más viejo (ingest --mph /
+     --plain-ids): *.id.mph si lo tiene, *.id.fc o *.id.str/lex/ord2pos según cuál tenga.
+  El manifest se reescribe entero (archivo temporal + move atómico) bajo un lock de archivo, así
+  que los lectores ven siempre una lista completa; los directorios viejos se borran después.
+ */
+public final class SegmentStore {
+
+    public static final String STUB_LABEL = "@ref";
+    /** Extremo sin resolver en el PGDF de compact: un id que empieza con '@' no puede ser de un nodo (es header). */
+    private static final String MISSING = "@missing";
+    private static final String LOCK = "segments.lock";
+    private static final Object LOCAL_LOCK = new Object();
+
+    private final Path dir;
+
+    public SegmentStore(Path dir) {
+        this.dir = dir;
+    }
+
+    /**
+      Agrega un delta con los nodos / aristas de los PGDF dados (null = ninguno) y los ids a borrar
+      de segmentos anteriores (archivos con un id por línea, null = ninguno). Devuelve su directorio.
+     */
+    public Path ingestDelta(Path nodesPgdf, Path edgesPgdf, Path deleteNodes, Path deleteEdges) throws IOException {
+        synchronized (LOCAL_LOCK) {
+            try (FileChannel ch = lockChannel()) {
+                ch.lock();                      // se libera al cerrar el canal
+                List<String> names = new ArrayList<>(SegmentedGraph.manifest(dir));
+                String name = String.format(Locale.ROOT, "delta.%06d", nextSequence(names));
+                Path tmp = dir.resolve(name + ".tmp");
+                deleteTree(tmp);
+
+                Set<String> ids = new HashSet<>();
+                if (nodesPgdf != null) PgdfReader.scan(nodesPgdf, t -> { if (isNodeRow(t)) ids.add(t.trimmed(t.header().id)); });
+                Set<String> stubs = new LinkedHashSet<>();
+                if (edgesPgdf != null) {
+                    Set<String> missing = new HashSet<>();
+                    SegmentedGraph g = SegmentedGraph.open(dir, names);
+                    PgdfReader.scan(edgesPgdf, t -> {
+                        PgdfTokenizer.Header h = t.header();
+                        for (int col : new int[]{h.out, h.in}) {
+                            if (t.trimLen(col) == 0) continue;
+                            String id = t.trimmed(col);
+                            if (ids.contains(id) || stubs.contains(id) || missing.contains(id)) continue;
+                            if (g.node(id) != null) stubs.add(id); else missing.add(id);
+                        }
+                    });
+                }
+                int own = ingest(nodesPgdf, edgesPgdf, tmp, stubs, Layout.of(dir.resolve(names.get(0))));
+                try (var out = new DataOutputStream(Files.newOutputStream(tmp.resolve(SegmentedGraph.META)))) {
+                    out.writeInt(1);
+                    out.writeInt(own);
+                }
+                if (deleteNodes != null) tombstones(deleteNodes, tmp, SegmentedGraph.DEL_NODES);
+                if (deleteEdges != null) tombstones(deleteEdges, tmp, SegmentedGraph.DEL_EDGES);
+
+                Path seg = dir.resolve(name);
+                Files.move(tmp, seg, StandardCopyOption.ATOMIC_MOVE);
+                names.add(name);
+                writeManifest(names);
+                return seg;
+            }
+        }
+    }
+
+    /** Compacta todos los segmentos actuales en una base nueva. No hace nada con un solo segmento. */
+    public void compact() throws IOException {
+        List<String> snapshot;
+        String name;
+        synchronized (LOCAL_LOCK) {
+            try (FileChannel ch = lockChannel()) {
+                ch.lock();                      // se libera al cerrar el canal
+                snapshot = SegmentedGraph.manifest(dir);
+                if (snapshot.size() < 2) return;
+                name = String.format(Locale.ROOT, "base.%06d", nextSequence(snapshot));
+                // reserva el número: un ingestDelta concurrente no puede tomarlo
+                Files.createDirectories(dir.resolve(name + ".tmp"));
+            }
+        }
+
+        Path tmp = dir.resolve(name + ".tmp");
+        Path nodes = Files.createTempFile("graphbin_", "_compact_nodes.pgdf");
+        Path edges = Files.createTempFile("graphbin_", "_compact_edges.pgdf");
+        try {
+            long liveNodes, liveEdges;
+            SegmentedGraph g = SegmentedGraph.open(dir, snapshot);
+            liveNodes = exportNodes(g, nodes);
+            liveEdges = exportEdges(g, edges);
+            deleteTree(tmp);
+            ingest(nodes, edges, tmp, Set.of(), Layout.of(dir.resolve(snapshot.get(0))));
+            GraphReader r = GraphReader.open(tmp);
+            if (r.nodeCount() != liveNodes || r.edgeCount() != liveEdges) {
+                throw new IOException(tmp + ": la base compactada tiene " + r.nodeCount() + " nodos / " + r.edgeCount()
+                        + " aristas y la vista " + liveNodes + " / " + liveEdges + "; se conservan los segmentos");
+            }
+        } finally {
+            Files.deleteIfExists(nodes);
+            Files.deleteIfExists(edges);
+        }
+
+        synchronized (LOCAL_LOCK) {
+            try (FileChannel ch = lockChannel()) {
+                ch.lock();                      // se libera al cerrar el canal
+                Files.move(tmp, dir.resolve(name), StandardCopyOption.ATOMIC_MOVE);
+                List<String> names = new ArrayList<>();
+                names.add(name);
+                for (String s : SegmentedGraph.manifest(dir)) if (!snapshot.contains(s)) names.add(s);
+                writeManifest(names);
+            }
+        }
+        // los lectores abiertos conservan sus mapeos; los nuevos ya no ven estos segmentos
+        for (String s : snapshot) {
+            if (s.equals(".")) deleteBaseFiles(dir); else deleteTree(dir.resolve(s));
+        }
+    }
+
+    // ===== ingest de un segmento =====
+
+    /** Layout de ids de un segmento: opciones de ingest --mph / --plain-ids deducidas de sus archivos. */
+    private record Layout(boolean mph, boolean frontCoded) {
+        static Layout of(Path seg) {
+            return new Layout(Files.exists(seg.resolve("nodes.id.mph")), !Files.exists(seg.resolve("nodes.id.str")));
+        }
+    }
+
+    /** Ingest secuencial completo a out (stubs al final de los nodos). Devuelve los nodos propios. */
+    private static int ingest(Path nodesPgdf, Path edgesPgdf, Path out, Set<String> stubs, Layout layout) throws IOException {
+        BinaryTransformer t = new BinaryTransformer(out);
+        t.startNodes();
+        if (nodesPgdf != null) PgdfReader.scan(nodesPgdf, t::acceptNode);
+        int own = t.nodeCount();
+        for (String id : stubs) t.acceptNodeRow(new PgdfReader.NodeRow(id, STUB_LABEL, Map.of()));
+        t.finishNodesPass1();
+        t.buildNodesIdLex();
+        if (edgesPgdf != null) PgdfReader.scan(edgesPgdf, t::collectEdgeLabel);
+        t.buildDictionaries();
+        t.materializeNodesRec();
+        t.startEdges();
+        if (edgesPgdf != null) PgdfReader.scan(edgesPgdf, t::acceptEdge);
+        t.finishEdges();
+        t.buildIndexes();
+        if (layout.mph()) t.buildIdHashes();
+        if (layout.frontCoded()) t.frontCodeIdPools();
+        t.writeStats();
+        return own;
+    }
+
+    private static boolean isNodeRow(PgdfTokenizer t) {
+        PgdfTokenizer.Header h = t.header();
+        return t.trimLen(h.id) > 0 && t.trimLen(h.label) > 0;
+    }
+
+    private static void tombstones(Path idsFile, Path seg, String base) throws IOException {
+        new ExternalDictionaryBuilder().build(idsFile, seg.resolve(base + ".str"), seg.resolve(base + ".lex"), seg.resolve(base + ".ord2pos"));
+    }
+
+    // ===== export de la vista viva =====
+
+    /** Nodos vivos a PGDF; devuelve cuántos. */
+    private static long exportNodes(SegmentedGraph g, Path out) throws IOException {
+        long[] count = {0};
+        try (var w = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(out), StandardCharsets.UTF_8), 1 << 20)) {
+            List<String> header = new ArrayList<>();
+            boolean[] first = {true};
+            IOException[] error = {null};
+            g.forEachNode((id, node) -> {
+                try {
+                    List<String> names = new ArrayList<>(node.props.keySet());
+                    if (first[0] || !names.equals(header)) {       // header nuevo cuando cambian las columnas
+                        first[0] = false;
+                        header.clear();
+                        header.addAll(names);
+                        w.write("@id|@label");
+                        for (String n : names) w.write("|" + n);
+                        w.write('\n');
+                    }
+                    w.write(id + "|" + node.label);
+                    for (String v : node.props.values()) w.write("|" + v);
+                    w.write('\n');
+                    count[0]++;
+                } catch (IOException e) {
+                    if (error[0] == null) error[0] = e;
+                }
+            });
+            if (error[0] != null) throw error[0];
+        }
+        return count[0];
+    }
+
+    /**
+      Aristas vivas a PGDF; devuelve cuántas. Las que tienen un extremo sin resolver se exportan
+      igual (con MISSING) para que la base nueva las conserve como la vista: en edges.rec e
+      idx.edgesByLabel, no en adyacencia.
+     */
+    private static long exportEdges(SegmentedGraph g, Path out) throws IOException {
+        long[] count = {0};
+        try (var w = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(out), StandardCharsets.UTF_8), 1 << 20)) {
+            w.write("@id|@label|@dir|@out|@in\n");
+            IOException[] error = {null};
+            g.forEachEdge((id, label, src, dst) -> {
+                try {
+                    w.write(id + "|" + label + "|T|" + (src == null ? MISSING : src) + "|" + (dst == null ? MISSING : dst) + "\n");
+                    count[0]++;
+                } catch (IOException e) {
+                    if (error[0] == null) error[0] = e;
+                }
+            });
+            if (error[0] != null) throw error[0];
+        }
+        return count[0];
+    }
+
+    // ===== manifest =====
+
+    private FileChannel lockChannel() throws IOException {
+        Files.createDirectories(dir);
+        return FileChannel.open(dir.resolve(LOCK), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    }
+
+    private void writeManifest(List<String> names) throws IOException {
+        Path tmp = dir.resolve(SegmentedGraph.MANIFEST + ".tmp");
+        Files.write(tmp, names, StandardCharsets.UTF_8);
+        Files.move(tmp, dir.resolve(SegmentedGraph.MANIFEST), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Siguiente número libre para delta.N / base.N (mira el manifest y los directorios). */
+    private int nextSequence(List<String> names) throws IOException {
+        int max = 0;
+        List<String> all = new ArrayList<>(names);
+        try (var files = Files.list(dir)) {
+            files.forEach(p -> all.add(p.getFileName().toString()));
+        }
+        for (String s : all) {
+            String[] parts = s.split("\\.");
+            if (parts.length >= 2 && (parts[0].equals("delta") || parts[0].equals("base"))) {
+                try { max = Math.max(max, Integer.parseInt(parts[1])); } catch (NumberFormatException ignored) { }
+            }
+        }
+        return max + 1;
+    }
+
+    private static void deleteTree(Path p) throws IOException {
+        if (!Files.exists(p)) return;
+        try (var files = Files.walk(p)) {
+            for (Path f : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) Files.deleteIfExists(f);
+        }
+    }
+
+    /** Base en la raíz del store (ingest de siempre): borra solo los archivos del formato. */
+    private static void deleteBaseFiles(Path dir) throws IOException {
+        try (var files = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                String n = p.getFileName().toString();
+                if (Files.isRegularFile(p) && (n.startsWith("nodes.") || n.startsWith("edges.") || n.startsWith("dict.")
+                        || n.startsWith("idx.") || n.startsWith("adj.") || n.equals("graph.stats"))) {
+                    Files.delete(p);
+                }
+            }
+        }
+    }
+}
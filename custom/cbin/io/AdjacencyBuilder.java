@@ -0,0 +1,43 @@
+package cbin.io;
+
+import java.io.*;
+import java.nio.file.*;
+
+/**
+  Adyacencia CSR a partir de un temporal con triples [node:u32][label:u32][nbr:u32] (big-endian),
+  uno por arista (adj.out: src, label, dst; adj.in: dst, label, src).
+  Salida:
+   - <x>.off : nodeCount + 1 entradas u64 LE; off[i] = índice de la primera entrada del nodo i
+               en <x>.nbr, off[nodeCount] = total (grado de i = off[i+1] - off[i]).
+   - <x>.nbr : entradas [label:u32][nbr:u32] big-endian, agrupadas por nodo y dentro del nodo
+               ordenadas por (label, nbr): el filtro por label es un rango contiguo.
+  Las aristas paralelas se conservan (una entrada por arista).
+  El orden sale del sort/merge externo de PostingIndexBuilder (memoria acotada, -Dcbin.index.memMB).
+ */
+public final class AdjacencyBuilder {
+
+    private AdjacencyBuilder() {}
+
+    /** labelMap != null: remapeo de labels provisionales (ver PostingIndexBuilder.keyMap). */
+    public static void build(Path tmpTriples, int nodeCount, Path outOff, Path outNbr, int[] labelMap) throws IOException {
+        try (var off = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(outOff, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), 1 << 20));
+             var nbr = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(outNbr, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), 1 << 20))) {
+            long[] entries = {0L};
+            int[] next = {0};           // próximo nodo cuyo off falta escribir
+            new PostingIndexBuilder(2).keyMap(labelMap).sort(tmpTriples, (key, val) -> {
+                int node = (int) (key >>> 32);
+                while (next[0] <= node) {
+                    off.writeLong(Long.reverseBytes(entries[0]));
+                    next[0]++;
+                }
+                nbr.writeInt((int) key);
+                nbr.writeInt(val);
+                entries[0]++;
+            });
+            while (next[0] <= nodeCount) {
+                off.writeLong(Long.reverseBytes(entries[0]));
+                next[0]++;
+            }
+        }
+    }
+}
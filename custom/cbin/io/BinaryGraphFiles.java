@@ -8,14 +8,13 @@ import java.nio.file.*;
 import java.util.*;
 
 /**
-  I/O binario: helpers + consulta de nodo por id.
+  I/O binario: helpers de escritura y de índices.
   Incluye:
    - VarInt LEB128 sin signo
    - writeDictionary (str/lex/ord2pos)
-   - stringToId (binary search en lex)
-   - nodeIdToOrdinal (binary search en nodes.id.lex)
-   - buildLabelIndex / buildNodesByPropIndex (en memoria, dedup + varint+delta)
-   - queryNodeById(outDir, nodeId)
+   - nodeIdToOrdinal (binary search en nodes.id.lex, o en nodes.id.fc si el pool está front-coded)
+   - buildLabelIndex / buildNodesByPropIndex (sort/merge externo, dedup + varint+delta)
+  Las consultas (nodo por id, nodos por propiedad) están en GraphReader.
  */
 public class BinaryGraphFiles {
 
@@ -35,19 +34,30 @@ public class BinaryGraphFiles {
                 out.write((int)(b | 0x80));
             }
         }
+        /** Un solo pread de hasta 10 bytes (varint máximo) por valor. Para lecturas repetidas usar GraphReader. */
         public static long readUnsigned(FileChannel ch, long[] posRef) throws IOException {
             long pos = posRef[0];
+            ByteBuffer bb = ByteBuffer.allocate(10);
+            ch.read(bb, pos);
+            int n = bb.position();
+            long result = 0, shift = 0;
+            for (int i = 0; ; i++) {
+                if (i >= n) throw new EOFException();
+                int b = bb.get(i) & 0xFF;
+                result |= (long)(b & 0x7F) << shift;
+                if ((b & 0x80) == 0) { posRef[0] = pos + i + 1; return result; }
+                shift += 7;
+            }
+        }
+        public static long readUnsigned(InputStream in) throws IOException {
             long result = 0, shift = 0;
             while (true) {
-                ByteBuffer bb = ByteBuffer.allocate(1);
-                ch.read(bb, pos++);
-                int b = bb.array()[0] & 0xFF;
+                int b = in.read();
+                if (b < 0) throw new EOFException();
                 result |= (long)(b & 0x7F) << shift;
-                if ((b & 0x80) == 0) break;
+                if ((b & 0x80) == 0) return result;
                 shift += 7;
             }
-            posRef[0] = pos;
-            return result;
         }
     }
 
@@ -87,30 +97,30 @@ public class BinaryGraphFiles {
         }
     }
 
-    public static int stringToId(String s, Path lex, Path str) throws IOException {
-        byte[] target = s.getBytes(StandardCharsets.UTF_8);
-        long size = Files.size(lex);
-        long n = size / 12; // u32,u32,u32
-        try (var chLex = FileChannel.open(lex, StandardOpenOption.READ);
-             var chStr = FileChannel.open(str, StandardOpenOption.READ)) {
-            long lo=0, hi=n-1;
-            while (lo <= hi) {
-                long mid = (lo + hi) >>> 1;
-                ByteBuffer bb = ByteBuffer.allocate(12);
-                chLex.read(bb, mid*12);
-                bb.flip();
-                int off = bb.getInt();
-                int len = bb.getInt();
-                int id  = bb.getInt();
-
-                byte[] cur = new byte[len];
-                chStr.read(ByteBuffer.wrap(cur), Integer.toUnsignedLong(off));
-                int cmp = compareUtf8(cur, target);
-                if (cmp == 0) return id;
-                if (cmp < 0) lo = mid + 1; else hi = mid - 1;
+    /**
+      Variante streaming: values ya viene ordenado por bytes UTF-8 y sin repetidos,
+      así que id == posición y lex queda en el mismo orden que ord2pos (no hay sort ni lista en memoria).
+      Devuelve la cantidad de valores escritos.
+     */
+    public static int writeDictionary(Path strPath, Path lexPath, Path ord2posPath, Iterator<byte[]> values) throws IOException {
+        int n = 0;
+        try (var str = new BufferedOutputStream(Files.newOutputStream(strPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), 1<<20);
+             var ord2pos = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(ord2posPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), 1<<20));
+             var lex = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(lexPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), 1<<20))) {
+            long pos = 0L;
+            while (values.hasNext()) {
+                byte[] b = values.next();
+                str.write(b);
+                ord2pos.writeInt((int) pos);
+                ord2pos.writeInt(b.length);
+                lex.writeInt((int) pos);
+                lex.writeInt(b.length);
+                lex.writeInt(n);
+                pos += b.length;
+                n++;
             }
         }
-        return -1;
+        return n;
     }
 
     private static int compareUtf8(byte[] a, byte[] b) {
@@ -124,6 +134,8 @@ public class BinaryGraphFiles {
     }
 
     public static int nodeIdToOrdinal(Path nodesIdLex, Path nodesIdStr, String nodeId) throws IOException {
+        Path fc = nodesIdLex.toAbsolutePath().resolveSibling("nodes.id.fc");
+        if (!Files.exists(nodesIdLex) && Files.exists(fc)) return GraphReader.Dict.open(fc.getParent(), "nodes.id").idOf(nodeId);
         byte[] target = nodeId.getBytes(StandardCharsets.UTF_8);
         long size = Files.size(nodesIdLex);
         long n = size / 12;
@@ -156,63 +168,15 @@ public class BinaryGraphFiles {
     }
 
     public static void buildLabelIndex(Path tmpPairs, Path outPl, Path outDir) throws IOException {
-        if (!Files.exists(tmpPairs)) {
-            try (var os = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(outDir)))) {} // vacío
-            try (var os = new BufferedOutputStream(Files.newOutputStream(outPl))) {}
-            return;
-        }
-        Map<Integer, List<Integer>> map = new HashMap<>();
-        try (var is = new DataInputStream(new BufferedInputStream(Files.newInputStream(tmpPairs), 1<<20))) {
-            while (true) {
-                try {
-                    int label = is.readInt();
-                    int val   = is.readInt();
-                    map.computeIfAbsent(label, k -> new ArrayList<>()).add(val);
-                } catch (EOFException eof) { break; }
-            }
-        }
-        // escribir
-        long offset = 0L;
-        try (var pl = new BufferedOutputStream(Files.newOutputStream(outPl, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), 1<<20);
-             var dir = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(outDir, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), 1<<20))) {
-            var labels = new ArrayList<>(map.keySet());
-            labels.sort(Integer::compareTo);
-            for (int label : labels) {
-                List<Integer> lst = map.get(label);
-                lst.sort(Integer::compareTo);
-                // unique
-                int w=1;
-                for (int i=1;i<lst.size();i++){
-                    if (!lst.get(i).equals(lst.get(w-1))) {
-                        if (w!=i) lst.set(w, lst.get(i));
-                        w++;
-                    }
-                }
-                if (w < lst.size()) lst.subList(w, lst.size()).clear();
+        buildLabelIndex(tmpPairs, outPl, outDir, null);
+    }
 
-                long before = offset;
-                // posting list varint+delta
-                if (!lst.isEmpty()) {
-                    int prev = lst.get(0);
-                    VarInt.writeUnsigned(pl, Integer.toUnsignedLong(prev));
-                    int bytes = varintSize(prev);
-                    for (int i=1;i<lst.size();i++){
-                        int d = lst.get(i) - prev;
-                        VarInt.writeUnsigned(pl, Integer.toUnsignedLong(d));
-                        bytes += varintSize(d);
-                        prev = lst.get(i);
-                    }
-                    offset += bytes;
-                }
-                // dir
-                dir.writeInt(label);
-                dir.writeLong(Long.reverseBytes(before));
-                dir.writeInt(lst.size());
-            }
-        }
+    /** Igual, remapeando cada label con labelMap (null = sin remapeo). */
+    public static void buildLabelIndex(Path tmpPairs, Path outPl, Path outDir, int[] labelMap) throws IOException {
+        new PostingIndexBuilder(1).keyMap(labelMap).build(tmpPairs, outPl, outDir);
     }
 
-    private static int varintSize(int v) {
+    static int varintSize(int v) {
         int n=1;
         while ((v >>>= 7) != 0) n++;
         return n;
@@ -221,129 +185,13 @@ public class BinaryGraphFiles {
     // ============ Índice nodesByProp ============
     // tmpTriples: archivo con triples (propNameId:u32, propValId:u32, nodeOrd:u32)
     public static void buildNodesByPropIndex(Path tmpTriples, Path outPl, Path outDir) throws IOException {
-        if (!Files.exists(tmpTriples)) {
-            try (var os = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(outDir)))) {}
-            try (var os = new BufferedOutputStream(Files.newOutputStream(outPl))) {}
-            return;
-        }
-        // Cargar en memoria y agrupar (para datasets gigantes, cambiar por sort/merge externo)
-        Map<Long, List<Integer>> map = new HashMap<>();
-        try (var is = new DataInputStream(new BufferedInputStream(Files.newInputStream(tmpTriples), 1<<20))) {
-            while (true) {
-                try {
-                    int pn = is.readInt();
-                    int pv = is.readInt();
-                    int ord = is.readInt();
-                    long key = ((long)pn << 32) | (pv & 0xFFFFFFFFL);
-                    map.computeIfAbsent(key, k -> new ArrayList<>()).add(ord);
-                } catch (EOFException eof) { break; }
-            }
-        }
-        var keys = new ArrayList<>(map.keySet());
-        keys.sort(Comparator.comparingLong(Long::longValue));
-
-        long offset = 0L;
-        try (var pl = new BufferedOutputStream(Files.newOutputStream(outPl, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), 1<<20);
-             var dir = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(outDir, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), 1<<20))) {
-            for (long key : keys) {
-                List<Integer> lst = map.get(key);
-                lst.sort(Integer::compareTo);
-                // unique
-                int w=1;
-                for (int i=1;i<lst.size();i++){
-                    if (!lst.get(i).equals(lst.get(w-1))) {
-                        if (w!=i) lst.set(w, lst.get(i));
-                        w++;
-                    }
-                }
-                if (w < lst.size()) lst.subList(w, lst.size()).clear();
-
-                long before = offset;
-                if (!lst.isEmpty()) {
-                    int prev = lst.get(0);
-                    VarInt.writeUnsigned(pl, Integer.toUnsignedLong(prev));
-                    int bytes = varintSize(prev);
-                    for (int i=1;i<lst.size();i++){
-                        int d = lst.get(i) - prev;
-                        VarInt.writeUnsigned(pl, Integer.toUnsignedLong(d));
-                        bytes += varintSize(d);
-                        prev = lst.get(i);
-                    }
-                    offset += bytes;
-                }
-                int pn = (int)((key>>>32) & 0xFFFFFFFFL);
-                int pv = (int)( key       & 0xFFFFFFFFL);
-                dir.writeInt(pn);
-                dir.writeInt(pv);
-                dir.writeLong(Long.reverseBytes(before));
-                dir.writeInt(lst.size());
-            }
-        }
+        new PostingIndexBuilder(2).build(tmpTriples, outPl, outDir);
     }
 
-    // Consulta: obtener un nodo por id 
+    // Resultado de GraphReader.node
     public static final class NodeView {
         public final String label;
         public final Map<String,String> props;
         public NodeView(String label, Map<String,String> props) { this.label=label; this.props=props; }
     }
-
-    public static NodeView queryNodeById(Path outDir, String nodeId) throws IOException {
-        Path nodesIdLex = outDir.resolve("nodes.id.lex");
-        Path nodesIdStr = outDir.resolve("nodes.id.str");
-        Path nodesOff   = outDir.resolve("nodes.off");
-        Path nodesRec   = outDir.resolve("nodes.rec");
-
-        int ord = nodeIdToOrdinal(nodesIdLex, nodesIdStr, nodeId);
-        if (ord < 0) return null;
-
-        long off;
-        try (var chOff = FileChannel.open(nodesOff, StandardOpenOption.READ)) {
-            ByteBuffer bb = ByteBuffer.allocate(8);
-            chOff.read(bb, (long)ord * 8);
-            bb.flip();
-            long le = bb.getLong();
-            off = Long.reverseBytes(le); // stored LE
-        }
-
-        // Decodificar NodeRecord
-        int labelId;
-        int propCount;
-        List<Integer> pn = new ArrayList<>();
-        List<Integer> pv = new ArrayList<>();
-
-        try (var chRec = FileChannel.open(nodesRec, StandardOpenOption.READ)) {
-            long[] posRef = new long[]{off};
-            labelId = (int)VarInt.readUnsigned(chRec, posRef);
-            propCount = (int)VarInt.readUnsigned(chRec, posRef);
-            for (int i=0;i<propCount;i++){
-                pn.add((int)VarInt.readUnsigned(chRec, posRef));
-                pv.add((int)VarInt.readUnsigned(chRec, posRef));
-            }
-        }
-
-        // Resolver strings usando dict.*.ord2pos (id -> off,len)  (OOM-safe)
-        String label = idToString(outDir.resolve("dict.labels.ord2pos"), outDir.resolve("dict.labels.str"), labelId);
-        Map<String,String> props = new LinkedHashMap<>();
-        for (int i=0;i<propCount;i++){
-            String name = idToString(outDir.resolve("dict.propname.ord2pos"), outDir.resolve("dict.propname.str"), pn.get(i));
-            String val  = idToString(outDir.resolve("dict.propval.ord2pos"), outDir.resolve("dict.propval.str"), pv.get(i));
-            props.put(name, val);
-        }
-        return new NodeView(label, props);
-    }
-
-    private static String idToString(Path ord2pos, Path str, int id) throws IOException {
-        try (var ch = FileChannel.open(ord2pos, StandardOpenOption.READ);
-             var chStr = FileChannel.open(str, StandardOpenOption.READ)) {
-            ByteBuffer bb = ByteBuffer.allocate(8);
-            ch.read(bb, (long)id * 8);
-            bb.flip();
-            int off = bb.getInt();
-            int len = bb.getInt();
-            byte[] b = new byte[len];
-            chStr.read(ByteBuffer.wrap(b), Integer.toUnsignedLong(off));
-            return new String(b, StandardCharsets.UTF_8);
-        }
-    }
 }
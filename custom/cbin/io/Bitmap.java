@@ -0,0 +1,370 @@
+package cbin.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+  Bitmap de ordinales estilo Roaring, inmutable y en memoria.
+   - El universo se parte en chunks de 2^16 valores (key = 16 bits altos); solo existen los
+     containers de chunks con algún valor.
+   - Container array: char[] creciente con los 16 bits bajos (card <= ARRAY_MAX).
+     Container bitmap: long[WORDS] (card > ARRAY_MAX). ARRAY_MAX = 4096 es donde ambos ocupan 8 KB.
+   - and / or / andNot operan container a container: arrays por merge, bitmaps de a 64 bits;
+     el resultado vuelve a elegir array o bitmap según su cardinalidad.
+   - rank / select / fill permiten recorrerlo como una posting list (ver GraphReader.Postings).
+  En disco (kind PostingFormat.KIND_BITMAP) cada container se guarda tal cual: array = card * u16 BE,
+  bitmap = WORDS * u64 BE; ver read / writeContainer.
+ */
+public final class Bitmap {
+
+    static final int ARRAY_MAX = 4096;
+    static final int WORDS = 1 << 10;
+    static final Bitmap EMPTY = new Bitmap(new char[0], new Object[0], 0);
+
+    private final char[] keys;
+    private final Object[] data;        // char[] o long[]
+    private final int[] before;         // valores en los containers anteriores (para rank / select)
+    private final int n, card;
+
+    private Bitmap(char[] keys, Object[] data, int n) {
+        this.keys = keys;
+        this.data = data;
+        this.n = n;
+        this.before = new int[n];
+        int total = 0;
+        for (int i = 0; i < n; i++) {
+            before[i] = total;
+            total += card(data[i]);
+        }
+        this.card = total;
+    }
+
+    // ===== construcción =====
+
+    /** Acumula valores crecientes (sin repetidos) y arma los containers a medida que cambia la key. */
+    public static final class Builder {
+        private char[] keys = new char[4];
+        private Object[] data = new Object[4];
+        private int n;
+        private char[] low;             // 16 bits bajos del chunk en curso
+        private int lows = 0, key = -1;
+
+        public Builder add(int v) {
+            if (low == null) low = new char[1 << 16];
+            int k = v >>> 16;
+            if (k != key) {
+                flush();
+                key = k;
+            }
+            low[lows++] = (char) v;
+            return this;
+        }
+
+        private void flush() {
+            if (lows == 0) return;
+            Object c;
+            if (lows <= ARRAY_MAX) {
+                c = Arrays.copyOf(low, lows);
+            } else {
+                long[] w = new long[WORDS];
+                for (int i = 0; i < lows; i++) w[low[i] >>> 6] |= 1L << low[i];
+                c = w;
+            }
+            append((char) key, c);
+            lows = 0;
+        }
+
+        private void append(char k, Object c) {
+            if (n == keys.length) {
+                keys = Arrays.copyOf(keys, n * 2);
+                data = Arrays.copyOf(data, n * 2);
+            }
+            keys[n] = k;
+            data[n++] = c;
+        }
+
+        public Bitmap build() {
+            flush();
+            return new Bitmap(keys, data, n);
+        }
+    }
+
+    /** Materializa un cursor (consumiéndolo). */
+    public static Bitmap of(OrdinalCursor c) {
+        Builder b = new Builder();
+        while (c.hasNext()) b.add(c.nextInt());
+        return b.build();
+    }
+
+    /** Lee la cabecera [n:u32][n * (key:u16, card-1:u16, off:u64 LE)] en pos y copia los containers. */
+    static Bitmap read(MappedFile pl, long pos) {
+        int n = pl.getInt(pos);
+        char[] keys = new char[n];
+        Object[] data = new Object[n];
+        long e = pos + 4;
+        for (int i = 0; i < n; i++, e += PostingFormat.BITMAP_ENTRY) {
+            int kc = pl.getInt(e);
+            int card = (kc & 0xFFFF) + 1;
+            long off = pl.getLongLE(e + 4);
+            keys[i] = (char) (kc >>> 16);
+            if (card <= ARRAY_MAX) {
+                char[] a = new char[card];
+                for (int j = 0; j < card; j++) a[j] = (char) (((pl.get(off + 2L * j) & 0xFF) << 8) | (pl.get(off + 2L * j + 1) & 0xFF));
+                data[i] = a;
+            } else {
+                long[] w = new long[WORDS];
+                for (int j = 0; j < WORDS; j++) w[j] = pl.getLong(off + 8L * j);
+                data[i] = w;
+            }
+        }
+        return new Bitmap(keys, data, n);
+    }
+
+    int containers() { return n; }
+    int key(int i) { return keys[i]; }
+    int containerCard(int i) { return card(data[i]); }
+
+    /** Escribe el container i (array: u16 BE por valor; bitmap: u64 BE por palabra); devuelve los bytes. */
+    int writeContainer(int i, OutputStream out) throws IOException {
+        if (data[i] instanceof char[] a) {
+            for (char c : a) { out.write(c >>> 8); out.write(c); }
+            return 2 * a.length;
+        }
+        for (long w : (long[]) data[i]) {
+            for (int s = 56; s >= 0; s -= 8) out.write((int) (w >>> s));
+        }
+        return 8 * WORDS;
+    }
+
+    // ===== consultas =====
+
+    public int cardinality() { return card; }
+
+    public boolean contains(int v) {
+        int i = find(v >>> 16);
+        return i >= 0 && contains(data[i], v & 0xFFFF);
+    }
+
+    /** Cantidad de valores < v. */
+    public int rank(int v) {
+        int i = lowerKey(v >>> 16);
+        if (i == n) return card;
+        int r = before[i];
+        if (keys[i] != v >>> 16) return r;
+        int lo = v & 0xFFFF;
+        if (data[i] instanceof char[] a) return r + lowerBound(a, lo);
+        long[] w = (long[]) data[i];
+        for (int j = 0; j < lo >>> 6; j++) r += Long.bitCount(w[j]);
+        return r + Long.bitCount(w[lo >>> 6] & ((1L << lo) - 1));
+    }
+
+    /** Valor en la posición r (0 <= r < cardinality) del orden creciente. */
+    public int select(int r) {
+        int lo = 0, hi = n - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (before[mid] <= r) lo = mid; else hi = mid - 1;
+        }
+        int base = keys[lo] << 16, k = r - before[lo];
+        if (data[lo] instanceof char[] a) return base | a[k];
+        long[] w = (long[]) data[lo];
+        for (int j = 0; ; j++) {
+            int c = Long.bitCount(w[j]);
+            if (k < c) {
+                long word = w[j];
+                for (int s = 0; s < k; s++) word &= word - 1;
+                return base | (j << 6) | Long.numberOfTrailingZeros(word);
+            }
+            k -= c;
+        }
+    }
+
+    /** Copia a dst hasta max valores >= from, en orden; devuelve cuántos. */
+    public int fill(int from, int[] dst, int max) {
+        int k = from >>> 16, filled = 0;
+        for (int i = lowerKey(k); i < n && filled < max; i++) {
+            int base = keys[i] << 16;
+            int lo = keys[i] == k ? from & 0xFFFF : 0;
+            if (data[i] instanceof char[] a) {
+                for (int p = lowerBound(a, lo); p < a.length && filled < max; p++) dst[filled++] = base | a[p];
+            } else {
+                long[] w = (long[]) data[i];
+                int j = lo >>> 6;
+                long word = w[j] & (-1L << lo);
+                while (filled < max) {
+                    while (word == 0 && ++j < WORDS) word = w[j];
+                    if (word == 0) break;
+                    dst[filled++] = base | (j << 6) | Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                }
+            }
+        }
+        return filled;
+    }
+
+    public void forEach(IntConsumer onValue) {
+        int[] buf = new int[PostingFormat.BLOCK];
+        int from = 0, got;
+        while ((got = fill(from, buf, buf.length)) > 0) {
+            for (int i = 0; i < got; i++) onValue.accept(buf[i]);
+            if (buf[got - 1] == Integer.MAX_VALUE) break;
+            from = buf[got - 1] + 1;
+        }
+    }
+
+    /** Cursor (GraphReader.Postings) sobre el bitmap, combinable con PostingJoin. */
+    public GraphReader.Postings cursor() { return new GraphReader.Postings(this); }
+
+    // ===== operaciones =====
+
+    public Bitmap and(Bitmap o) {
+        Builder r = new Builder();
+        for (int i = 0, j = 0; i < n && j < o.n; ) {
+            if (keys[i] < o.keys[j]) i++;
+            else if (keys[i] > o.keys[j]) j++;
+            else {
+                Object c = and(data[i], o.data[j]);
+                if (c != null) r.append(keys[i], c);
+                i++; j++;
+            }
+        }
+        return new Bitmap(r.keys, r.data, r.n);
+    }
+
+    public Bitmap or(Bitmap o) {
+        Builder r = new Builder();
+        int i = 0, j = 0;
+        while (i < n || j < o.n) {
+            if (j == o.n || (i < n && keys[i] < o.keys[j])) { r.append(keys[i], data[i]); i++; }
+            else if (i == n || keys[i] > o.keys[j]) { r.append(o.keys[j], o.data[j]); j++; }
+            else { r.append(keys[i], or(data[i], o.data[j])); i++; j++; }
+        }
+        return new Bitmap(r.keys, r.data, r.n);
+    }
+
+    /** Valores de this que no están en o. */
+    public Bitmap andNot(Bitmap o) {
+        Builder r = new Builder();
+        for (int i = 0, j = 0; i < n; i++) {
+            while (j < o.n && o.keys[j] < keys[i]) j++;
+            Object c = j < o.n && o.keys[j] == keys[i] ? andNot(data[i], o.data[j]) : data[i];
+            if (c != null) r.append(keys[i], c);
+        }
+        return new Bitmap(r.keys, r.data, r.n);
+    }
+
+    // ===== containers =====
+
+    private static int card(Object c) {
+        if (c instanceof char[] a) return a.length;
+        int k = 0;
+        for (long w : (long[]) c) k += Long.bitCount(w);
+        return k;
+    }
+
+    private static boolean contains(Object c, int low) {
+        if (c instanceof char[] a) return Arrays.binarySearch(a, (char) low) >= 0;
+        return (((long[]) c)[low >>> 6] & (1L << low)) != 0;
+    }
+
+    private static long[] words(Object c) {
+        if (c instanceof long[] w) return w;
+        long[] w = new long[WORDS];
+        for (char v : (char[]) c) w[v >>> 6] |= 1L << v;
+        return w;
+    }
+
+    /** Container para las palabras w (ya propias): array si card <= ARRAY_MAX, null si vacío. */
+    private static Object pack(long[] w) {
+        int k = 0;
+        for (long x : w) k += Long.bitCount(x);
+        if (k == 0) return null;
+        if (k > ARRAY_MAX) return w;
+        char[] a = new char[k];
+        int p = 0;
+        for (int j = 0; j < WORDS; j++) {
+            for (long x = w[j]; x != 0; x &= x - 1) a[p++] = (char) ((j << 6) | Long.numberOfTrailingZeros(x));
+        }
+        return a;
+    }
+
+    private static Object and(Object a, Object b) {
+        if (a instanceof char[] x && b instanceof char[] y) {
+            char[] r = new char[Math.min(x.length, y.length)];
+            int k = 0;
+            for (int i = 0, j = 0; i < x.length && j < y.length; ) {
+                if (x[i] < y[j]) i++;
+                else if (x[i] > y[j]) j++;
+                else { r[k++] = x[i]; i++; j++; }
+            }
+            return k == 0 ? null : Arrays.copyOf(r, k);
+        }
+        if (b instanceof char[]) { Object t = a; a = b; b = t; }
+        if (a instanceof char[] x) {
+            long[] w = (long[]) b;
+            char[] r = new char[x.length];
+            int k = 0;
+            for (char v : x) if ((w[v >>> 6] & (1L << v)) != 0) r[k++] = v;
+            return k == 0 ? null : Arrays.copyOf(r, k);
+        }
+        long[] x = (long[]) a, y = (long[]) b, w = new long[WORDS];
+        for (int j = 0; j < WORDS; j++) w[j] = x[j] & y[j];
+        return pack(w);
+    }
+
+    private static Object or(Object a, Object b) {
+        if (a instanceof char[] x && b instanceof char[] y && x.length + y.length <= ARRAY_MAX) {
+            char[] r = new char[x.length + y.length];
+            int i = 0, j = 0, k = 0;
+            while (i < x.length || j < y.length) {
+                if (j == y.length || (i < x.length && x[i] < y[j])) r[k++] = x[i++];
+                else if (i == x.length || x[i] > y[j]) r[k++] = y[j++];
+                else { r[k++] = x[i++]; j++; }
+            }
+            return Arrays.copyOf(r, k);
+        }
+        long[] x = words(a), y = words(b), w = new long[WORDS];
+        for (int j = 0; j < WORDS; j++) w[j] = x[j] | y[j];
+        return pack(w);
+    }
+
+    private static Object andNot(Object a, Object b) {
+        if (a instanceof char[] x) {
+            char[] r = new char[x.length];
+            int k = 0;
+            for (char v : x) if (!contains(b, v)) r[k++] = v;
+            return k == 0 ? null : Arrays.copyOf(r, k);
+        }
+        long[] x = (long[]) a, y = words(b), w = new long[WORDS];
+        for (int j = 0; j < WORDS; j++) w[j] = x[j] & ~y[j];
+        return pack(w);
+    }
+
+    // ===== búsquedas =====
+
+    private int find(int k) {
+        int i = lowerKey(k);
+        return i < n && keys[i] == k ? i : -1;
+    }
+
+    /** Primer container con key >= k. */
+    private int lowerKey(int k) {
+        int lo = 0, hi = n;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid] < k) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    private static int lowerBound(char[] a, int v) {
+        int lo = 0, hi = a.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] < v) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,147 @@
+package cbin.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Arrays;
+
+/**
+  Resolución string -> id sobre un diccionario (lex/str) ya escrito, sin abrir archivos por consulta.
+   - Si cabe en el presupuesto: hash open-addressing (linear probing) de bytes UTF-8 -> id,
+     con el pool completo en un byte[] (sin Strings).
+   - Si no cabe (o el pool / lex pasan de 2 GB): binary search sobre lex/str mmapeados
+     (MappedFile: offsets long, el offset de lex se lee como u32 sin signo).
+  Presupuesto por defecto: -Dcbin.dictcache.memMB (512 MB).
+ */
+public final class DictionaryCache {
+
+    private static final int EMPTY = -1;
+    private static final long MAX_ARRAY = Integer.MAX_VALUE - 8;   // modo hash: pool y lex en byte[]
+
+    // modo hash
+    private byte[] pool;
+    private int[] offs, lens, ids;
+    private int[] slots;            // índice de entrada o EMPTY
+    private int mask;
+
+    // modo mmap
+    private MappedFile lexMap, strMap;
+    private int n;
+
+    private DictionaryCache() {}
+
+    public static long defaultBudget() {
+        return Long.getLong("cbin.dictcache.memMB", 512L) << 20;
+    }
+
+    public static DictionaryCache open(Path lex, Path str) throws IOException {
+        return open(lex, str, defaultBudget());
+    }
+
+    public static DictionaryCache open(Path lex, Path str, long memBudget) throws IOException {
+        long lexSize = Files.size(lex), strSize = Files.size(str);
+        if (lexSize / 12 > Integer.MAX_VALUE) throw new IOException("Diccionario con más de 2^31 entradas: " + lex);
+        DictionaryCache c = new DictionaryCache();
+        c.n = (int) (lexSize / 12);
+        int cap = tableSize(c.n);
+        long hashBytes = strSize + 12L * c.n + 4L * cap;
+        boolean fitsArrays = strSize <= MAX_ARRAY && lexSize <= MAX_ARRAY;
+        if (fitsArrays && hashBytes <= memBudget) c.loadHash(lex, str, cap);
+        else c.loadMapped(lex, str);
+        return c;
+    }
+
+    /** true si está en modo hash (en memoria); false si usa binary search mmapeado. */
+    public boolean inMemory() { return slots != null; }
+
+    public int size() { return n; }
+
+    private static int tableSize(int n) {
+        int cap = Integer.highestOneBit(Math.max(4, n) * 2 - 1) << 1;   // >= 2n, potencia de 2
+        return cap < 0 ? 1 << 30 : cap;
+    }
+
+    private void loadHash(Path lex, Path str, int cap) throws IOException {
+        pool = Files.readAllBytes(str);
+        offs = new int[n]; lens = new int[n]; ids = new int[n];
+        ByteBuffer lb = ByteBuffer.wrap(Files.readAllBytes(lex));
+        slots = new int[cap];
+        Arrays.fill(slots, EMPTY);
+        mask = cap - 1;
+        for (int i = 0; i < n; i++) {
+            offs[i] = lb.getInt();
+            lens[i] = lb.getInt();
+            ids[i]  = lb.getInt();
+            int s = hash(pool, offs[i], lens[i]) & mask;
+            while (slots[s] != EMPTY) s = (s + 1) & mask;
+            slots[s] = i;
+        }
+    }
+
+    private void loadMapped(Path lex, Path str) throws IOException {
+        lexMap = MappedFile.open(lex);
+        strMap = MappedFile.open(str);
+    }
+
+    public int idOf(String s) {
+        return idOf(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public int idOf(byte[] key) {
+        return idOf(key, 0, key.length);
+    }
+
+    /** Id de key[from, from+len) o -1 si no está. */
+    public int idOf(byte[] key, int from, int len) {
+        if (slots != null) {
+            int s = hash(key, from, len) & mask;
+            while (true) {
+                int e = slots[s];
+                if (e == EMPTY) return -1;
+                if (lens[e] == len && Arrays.equals(pool, offs[e], offs[e] + len, key, from, from + len)) return ids[e];
+                s = (s + 1) & mask;
+            }
+        }
+        int lo = 0, hi = n - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long base = mid * 12L;
+            long off = Integer.toUnsignedLong(lexMap.getInt(base));
+            int l = lexMap.getInt(base + 4);
+            int cmp = strMap.compare(off, l, key, from, len);
+            if (cmp == 0) return lexMap.getInt(base + 8);
+            if (cmp < 0) lo = mid + 1; else hi = mid - 1;
+        }
+        return -1;
+    }
+
+    /** FNV-1a + mezcla final (murmur3 fmix32). */
+    public static int hash(byte[] b, int off, int len) {
+        int h = 0x811C9DC5;
+        for (int i = off, end = off + len; i < end; i++) {
+            h ^= b[i];
+            h *= 0x01000193;
+        }
+        return fmix(h);
+    }
+
+    /** Mismo hash que hash(byte[],...) pero desde un archivo mapeado (pool de más de 2 GB). */
+    public static int hash(MappedFile b, long off, int len) {
+        int h = 0x811C9DC5;
+        for (long i = off, end = off + len; i < end; i++) {
+            h ^= b.get(i);
+            h *= 0x01000193;
+        }
+        return fmix(h);
+    }
+
+    private static int fmix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
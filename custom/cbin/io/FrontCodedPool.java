@@ -0,0 +1,159 @@
+package cbin.io;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+  Pool de strings front-coded (<pool>.fc), en lugar de <pool>.str + .lex + .ord2pos para los ids
+  de nodos y aristas (lo arma cbin.core.FrontCodedPoolBuilder al final del ingest).
+    [magic:8][n:u32][blockSize:u32]
+    rank     : u32 BE * n               ordinal -> posición en orden lexicográfico
+    bloques  : los n strings en orden lexicográfico, de a blockSize:
+               primero [len:varint][bytes][ord:varint]
+               resto   [shared:varint][suffixLen:varint][suffix][ord:varint]  (shared = prefijo común con el anterior)
+    blockOff : u64 LE * ceil(n / blockSize)   al final del archivo
+  Por id: binary search sobre los primeros strings de cada bloque (sin comprimir) y recorrido de
+  un solo bloque. Por ordinal: rank y el bloque decodificado por un Cursor, que lo conserva
+  para las lecturas siguientes.
+  Con ids tipo URL (prefijo común casi completo) cada entrada queda en unos pocos bytes.
+ */
+public final class FrontCodedPool {
+
+    public static final byte[] MAGIC = {'C', 'B', 'F', 'C', 0, 0, 0, 1};
+    public static final int BLOCK = 16;
+    static final int HEADER = 16;
+
+    private final MappedFile f;
+    private final int n, block, blocks;
+    private final long offsPos;
+
+    private FrontCodedPool(MappedFile f) {
+        this.f = f;
+        this.n = f.getInt(8);
+        this.block = f.getInt(12);
+        this.blocks = (int) (((long) n + block - 1) / block);
+        this.offsPos = f.size() - 8L * blocks;
+    }
+
+    /** null si el archivo no existe (vacío) o no es un .fc. */
+    public static FrontCodedPool open(MappedFile f) {
+        if (f.size() < HEADER) return null;
+        for (int i = 0; i < MAGIC.length; i++) if (f.get(i) != MAGIC[i]) return null;
+        return new FrontCodedPool(f);
+    }
+
+    public int size() { return n; }
+
+    public String get(int ord) { return cursor().get(ord); }
+
+    /** Bytes UTF-8 del string con ordinal ord. */
+    public byte[] bytes(int ord) { return cursor().bytes(ord); }
+
+    /** true si el ordinal ord es key[from, from+len). */
+    public boolean matches(int ord, byte[] key, int from, int len) { return cursor().matches(ord, key, from, len); }
+
+    /** Ordinal de key[from, from+len) o -1. */
+    public int idOf(byte[] key, int from, int len) { return cursor().idOf(key, from, len); }
+
+    /** Posición lexicográfica del ordinal ord (su bloque es rank / BLOCK). */
+    int rank(int ord) {
+        if (ord < 0 || ord >= n) throw new IndexOutOfBoundsException("ordinal " + ord + " size " + n);
+        return f.getInt(HEADER + 4L * ord);
+    }
+
+    /**
+      Cursor para lecturas en serie (no es thread-safe): copia el bloque a un buffer propio
+      reutilizable y decodifica en un único buffer de string, hacia adelante. Si la siguiente
+      lectura cae en el mismo bloque, en una posición igual o posterior (p.ej. ordinales agrupados
+      por rank, como hace GraphReader.Dict.forEach), sigue desde donde quedó sin volver a copiar
+      ni a decodificar. Los métodos del pool crean un cursor por llamada.
+     */
+    public Cursor cursor() { return new Cursor(); }
+
+    public final class Cursor {
+        private byte[] raw = new byte[0];       // bytes del bloque cargado, tal como están en el archivo
+        private byte[] cur = new byte[64];      // cur[0..len) = string de la entrada slot
+        private int loaded = -1, slot = -1, len, ord, pos;   // slot -1 = nada decodificado del bloque
+
+        private Cursor() {}
+
+        public String get(int ord) { return at(rank(ord)); }
+
+        /** Bytes UTF-8 del string con ordinal ord (copia). */
+        public byte[] bytes(int ord) {
+            seek(rank(ord));
+            return Arrays.copyOf(cur, len);
+        }
+
+        public boolean matches(int ord, byte[] key, int from, int len) {
+            if (ord < 0 || ord >= n) return false;
+            seek(rank(ord));
+            return Arrays.equals(cur, 0, this.len, key, from, from + len);
+        }
+
+        public int idOf(byte[] key, int from, int len) {
+            if (n == 0) return -1;
+            int lo = 0, hi = blocks - 1;
+            while (lo < hi) {
+                int mid = (lo + hi + 1) >>> 1;
+                MappedFile.Cursor c = f.cursor(blockOff(mid));
+                int l = c.varint32();
+                if (f.compare(c.position(), l, key, from, len) <= 0) lo = mid; else hi = mid - 1;
+            }
+            seek(lo * block);
+            for (int count = Math.min(block, n - lo * block); ; ) {
+                int cmp = Arrays.compareUnsigned(cur, 0, this.len, key, from, from + len);
+                if (cmp == 0) return ord;
+                if (cmp > 0 || slot + 1 == count) return -1;
+                next();
+            }
+        }
+
+        /** String en la posición lexicográfica r (ya validada con rank). */
+        String at(int r) {
+            seek(r);
+            return new String(cur, 0, len, StandardCharsets.UTF_8);
+        }
+
+        /** Deja en cur la entrada r: sigue hacia adelante dentro del bloque cargado o lo recorre de nuevo. */
+        private void seek(int r) {
+            int b = r / block, i = r % block;
+            if (b != loaded) load(b);
+            else if (i < slot) { slot = -1; pos = 0; }
+            while (slot < i) next();
+        }
+
+        private void load(int b) {
+            long from = blockOff(b), to = b + 1 < blocks ? blockOff(b + 1) : offsPos;
+            int size = (int) (to - from);
+            if (raw.length < size) raw = new byte[Math.max(size, raw.length * 2)];
+            loaded = -1;
+            f.get(from, raw, 0, size);
+            loaded = b;
+            slot = -1;
+            pos = 0;
+        }
+
+        /** Decodifica la entrada siguiente del bloque (la primera está completa, sin prefijo compartido). */
+        private void next() {
+            int shared = slot < 0 ? 0 : varint(), suffix = varint();
+            len = shared + suffix;
+            if (cur.length < len) cur = Arrays.copyOf(cur, Math.max(len, cur.length * 2));
+            System.arraycopy(raw, pos, cur, shared, suffix);
+            pos += suffix;
+            ord = varint();
+            slot++;
+        }
+
+        private int varint() {
+            int v = 0;
+            for (int shift = 0; ; shift += 7) {
+                int x = raw[pos++];
+                v |= (x & 0x7F) << shift;
+                if (x >= 0) return v;
+            }
+        }
+    }
+
+    private long blockOff(int b) { return f.getLongLE(offsPos + 8L * b); }
+}
@@ -0,0 +1,177 @@
+package cbin.io;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.IntUnaryOperator;
+
+/**
+  Conteos y group-by sobre un GraphReader (cantidad de nodos por label, top-k de valores de una
+  propiedad, etc.), con filtro opcional de nodos (un OrdinalCursor: posting list o PostingJoin).
+   - Sin filtro, lo que ya está contado se responde de los .dir: aristas por label
+     (idx.edgesByLabel.dir) y nodos por valor de propiedad (las entradas de idx.nodesByProp.dir
+     de ese nombre). Sin decodificar ninguna posting list.
+   - El resto (nodos por label, o cualquier group-by con filtro) es un scan en paralelo por
+     rangos contiguos de ordinales (uno por hilo): cada hilo cuenta en su int[] indexado por id de diccionario (label id
+     de nodes.rec, valueId de la columna de la propiedad; ver NodeColumns) y al final se suman.
+     El filtro se materializa una vez como Bitmap y cada hilo toma su rango con fill.
+  Los grupos salen ordenados por cantidad descendente y, a igual cantidad, por id de diccionario
+  (= orden del string). k <= 0 devuelve todos.
+ */
+public final class GraphAggregates {
+
+    /** Un grupo del resultado: el string del diccionario y su cantidad. */
+    public static final class Group {
+        public final String key;
+        public final long count;
+        public Group(String key, long count) { this.key = key; this.count = count; }
+        @Override public String toString() { return key + "=" + count; }
+    }
+
+    private static final int MIN_RANGE = 1 << 16;   // menos ordinales por hilo no compensa
+
+    private final GraphReader r;
+    private final int threads;
+
+    public GraphAggregates(GraphReader r, int threads) {
+        this.r = r;
+        this.threads = Math.max(1, threads);
+    }
+
+    /** Cantidad de nodos (que cumplen el filtro; null = todos). */
+    public long countNodes(OrdinalCursor filter) {
+        if (filter == null) return r.nodeCount();
+        long n = 0;
+        while (filter.hasNext()) { filter.nextInt(); n++; }
+        return n;
+    }
+
+    /** Aristas por label, del count de idx.edgesByLabel.dir. */
+    public List<Group> edgesByLabel(int k) {
+        GraphReader.PostingIndex idx = r.edgesByLabel();
+        long[] counts = new long[r.labels().size()];
+        for (long e = 0; e < idx.keys(); e++) counts[(int) idx.key(e)] = idx.count(e);
+        return top(counts, r.labels(), k);
+    }
+
+    /** Nodos por label (scan de nodes.rec). */
+    public List<Group> nodesByLabel(OrdinalCursor filter, int k) {
+        return top(scan(r.labels().size(), r::nodeLabelId, filter), r.labels(), k);
+    }
+
+    /** Nodos por valor de la propiedad; los nodos sin valor no cuentan. Nombre inexistente: vacío. */
+    public List<Group> nodesByProperty(String propName, OrdinalCursor filter, int k) {
+        int pn = r.propNames().idOf(propName);
+        if (pn < 0) return List.of();
+        GraphReader.Dict vals = r.propValues();
+        if (filter == null) {
+            // entradas (pn, pv) de idx.nodesByProp.dir: contiguas y ya contadas
+            GraphReader.PostingIndex idx = r.nodesByProp();
+            long[] counts = new long[vals.size()];
+            for (long e = lowerBound(idx, (long) pn << 32); e < idx.keys() && (idx.key(e) >>> 32) == pn; e++) {
+                counts[(int) idx.key(e)] = idx.count(e);
+            }
+            return top(counts, vals, k);
+        }
+        NodeColumns.Column col = r.column(propName);
+        IntUnaryOperator key = col != null ? col::valueId : ord -> {
+            int[] v = {-1};
+            r.forEachNodeProperty(ord, (name, val) -> { if (name == pn && v[0] < 0) v[0] = val; });
+            return v[0];
+        };
+        return top(scan(vals.size(), key, filter), vals, k);
+    }
+
+    // ===== scan paralelo =====
+
+    /** Cuenta key(ord) (ignorando < 0) sobre los nodos del filtro, por rangos en paralelo. */
+    private long[] scan(int groups, IntUnaryOperator key, OrdinalCursor filter) {
+        int n = r.nodeCount();
+        Bitmap only = filter == null ? null : Bitmap.of(filter);
+        List<Callable<int[]>> tasks = new ArrayList<>();
+        int parts = (int) Math.max(1, Math.min(threads, (n + MIN_RANGE - 1L) / MIN_RANGE));
+        for (int p = 0; p < parts; p++) {
+            int a = (int) ((long) n * p / parts), b = (int) ((long) n * (p + 1) / parts);
+            tasks.add(() -> {
+                int[] counts = new int[groups];
+                if (only == null) {
+                    for (int ord = a; ord < b; ord++) count(counts, key.applyAsInt(ord));
+                } else {
+                    int[] buf = new int[PostingFormat.BLOCK];
+                    for (int at = a, got; (got = only.fill(at, buf, buf.length)) > 0; at = buf[got - 1] + 1) {
+                        for (int i = 0; i < got; i++) {
+                            if (buf[i] >= b) return counts;
+                            count(counts, key.applyAsInt(buf[i]));
+                        }
+                        if (buf[got - 1] == Integer.MAX_VALUE) break;
+                    }
+                }
+                return counts;
+            });
+        }
+        long[] total = new long[groups];
+        for (int[] part : run(tasks)) for (int g = 0; g < groups; g++) total[g] += part[g];
+        return total;
+    }
+
+    private static void count(int[] counts, int g) {
+        if (g >= 0) counts[g]++;
+    }
+
+    private List<int[]> run(List<Callable<int[]>> tasks) {
+        if (tasks.size() == 1) {
+            List<int[]> out = new ArrayList<>();
+            try {
+                for (Callable<int[]> t : tasks) out.add(t.call());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            return out;
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(tasks.size(), t -> {
+            Thread th = new Thread(t, "cbin-aggregate");
+            th.setDaemon(true);
+            return th;
+        });
+        try {
+            List<int[]> out = new ArrayList<>();
+            for (Future<int[]> f : pool.invokeAll(tasks)) out.add(f.get());
+            return out;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // ===== top-k =====
+
+    /** Los k grupos con más cantidad (heap acotado a k sobre los ids), ordenados. */
+    private static List<Group> top(long[] counts, GraphReader.Dict dict, int k) {
+        int limit = k <= 0 ? counts.length : k;
+        Comparator<Integer> order = (x, y) -> counts[x] != counts[y] ? Long.compare(counts[y], counts[x]) : Integer.compare(x, y);
+        PriorityQueue<Integer> heap = new PriorityQueue<>(order.reversed());
+        for (int g = 0; g < counts.length; g++) {
+            if (counts[g] == 0) continue;
+            heap.add(g);
+            if (heap.size() > limit) heap.poll();
+        }
+        Integer[] ids = heap.toArray(new Integer[0]);
+        Arrays.sort(ids, order);
+        List<Group> out = new ArrayList<>(ids.length);
+        for (int g : ids) out.add(new Group(dict.get(g), counts[g]));
+        return out;
+    }
+
+    /** Primera entrada del .dir con key >= key. */
+    private static long lowerBound(GraphReader.PostingIndex idx, long key) {
+        long lo = 0, hi = idx.keys();
+        while (lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            if (idx.key(mid) < key) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+}
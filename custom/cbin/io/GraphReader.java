@@ -0,0 +1,758 @@
+package cbin.io;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+  Lector de un directorio cbin abierto una sola vez (para consultas repetidas).
+   - Mapea todos los archivos con MappedFile (sin límite de 2 GB). open() acepta también un
+     contenedor .cbin (ver PackedGraph): un solo mapeo y cada archivo es una sección de él.
+   - Lookups de id / diccionarios: binary search en *.lex comparando UTF-8 directo sobre el mapeo.
+   - Registros: varints decodificados desde memoria, sin syscalls. Posting lists: ver Postings.
+   - Seguro entre hilos: solo lecturas absolutas; cada consulta usa su propio cursor.
+   - Sin close: como en MappedFile, los mapeos se liberan cuando el GC recolecta el lector.
+ */
+public final class GraphReader {
+
+    /** De dónde salen los archivos por nombre: un outDir o las secciones de un contenedor. */
+    @FunctionalInterface
+    interface Source {
+        MappedFile file(String name) throws IOException;
+
+        static Source of(Path p) throws IOException {
+            if (!Files.isRegularFile(p)) return name -> MappedFile.open(p.resolve(name));
+            return PackedGraph.open(p)::file;
+        }
+    }
+
+    /**
+      Diccionario / pool de ids: str (bytes), lex [off,len,id] ordenado, ord2pos [off,len] por id;
+      o bien <base>.fc (pool front-coded, ver FrontCodedPool) que reemplaza a los tres.
+     */
+    public static final class Dict {
+        private final MappedFile str, lex, ord2pos;
+        private final FrontCodedPool fc;        // <base>.fc si el pool se comprimió (ids de nodos / aristas)
+        private final IdHash mph;               // <base>.mph si se generó (ingest --mph / build-mph)
+        private final int n;
+
+        Dict(Source src, String base) throws IOException {
+            this.str = src.file(base + ".str");
+            this.lex = src.file(base + ".lex");
+            this.ord2pos = src.file(base + ".ord2pos");
+            this.fc = FrontCodedPool.open(src.file(base + ".fc"));
+            this.mph = IdHash.open(src.file(base + ".mph"));
+            this.n = fc != null ? fc.size() : (int) (ord2pos.size() / 8);
+        }
+
+        /** Pool suelto (p.ej. para armar su .mph) sin abrir el resto del grafo. */
+        public static Dict open(Path dir, String base) throws IOException {
+            return new Dict(Source.of(dir), base);
+        }
+
+        public int size() { return n; }
+
+        public int idOf(String s) {
+            byte[] k = s.getBytes(StandardCharsets.UTF_8);
+            return idOf(k, 0, k.length);
+        }
+
+        /**
+          Id de key[from, from+len) o -1. Con .mph: el candidato del hash se verifica contra el pool;
+          sin él, binary search sobre lex (o sobre los bloques del .fc).
+         */
+        public int idOf(byte[] key, int from, int len) {
+            if (mph != null) return mph.ordinalOf(key, from, len, id -> matches(id, key, from, len));
+            if (fc != null) return fc.idOf(key, from, len);
+            long lo = 0, hi = lex.size() / 12 - 1;
+            while (lo <= hi) {
+                long mid = (lo + hi) >>> 1;
+                long base = mid * 12;
+                int cmp = str.compare(Integer.toUnsignedLong(lex.getInt(base)), lex.getInt(base + 4), key, from, len);
+                if (cmp == 0) return lex.getInt(base + 8);
+                if (cmp < 0) lo = mid + 1; else hi = mid - 1;
+            }
+            return -1;
+        }
+
+        private boolean matches(int id, byte[] key, int from, int len) {
+            if (fc != null) return fc.matches(id, key, from, len);
+            return id >= 0 && id < n
+                && str.compare(Integer.toUnsignedLong(ord2pos.getInt(8L * id)), ord2pos.getInt(8L * id + 4), key, from, len) == 0;
+        }
+
+        public String get(int id) {
+            if (fc != null) return fc.get(id);
+            long base = (long) id * 8;
+            return str.utf8(Integer.toUnsignedLong(ord2pos.getInt(base)), ord2pos.getInt(base + 4));
+        }
+
+        /** Bytes UTF-8 del string id. */
+        public byte[] bytes(int id) {
+            if (fc != null) return fc.bytes(id);
+            long base = (long) id * 8;
+            byte[] b = new byte[ord2pos.getInt(base + 4)];
+            str.get(Integer.toUnsignedLong(ord2pos.getInt(base)), b, 0, b.length);
+            return b;
+        }
+
+        /**
+          Strings de una secuencia de ids (idealmente creciente, como una posting list), por lotes:
+          se leen las entradas de ord2pos del lote y, si los bytes caen en un rango acotado de str
+          (pools escritos en orden de ordinal), se copian de una vez y se decodifican desde ahí.
+          Con .fc el lote se decodifica en orden de rank con un solo FrontCodedPool.Cursor (cada
+          bloque una vez) y se emite en el orden original. Devuelve la cantidad emitida.
+         */
+        public int forEach(PrimitiveIterator.OfInt ids, Consumer<String> onString) {
+            int total = 0;
+            final int batch = 1024, maxSpan = 1 << 20;
+            if (fc != null) {
+                FrontCodedPool.Cursor c = fc.cursor();
+                long[] byRank = new long[batch];
+                String[] out = new String[batch];
+                while (ids.hasNext()) {
+                    int k = 0;
+                    while (k < batch && ids.hasNext()) {
+                        byRank[k] = (long) fc.rank(checkId(ids.nextInt())) << 32 | k;
+                        k++;
+                    }
+                    Arrays.sort(byRank, 0, k);
+                    for (int i = 0; i < k; i++) out[(int) byRank[i]] = c.at((int) (byRank[i] >>> 32));
+                    for (int i = 0; i < k; i++) onString.accept(out[i]);
+                    total += k;
+                }
+                return total;
+            }
+            long[] off = new long[batch];
+            int[] len = new int[batch];
+            byte[] buf = new byte[1 << 16];
+            while (ids.hasNext()) {
+                int k = 0;
+                long lo = Long.MAX_VALUE, hi = 0;
+                while (k < batch && ids.hasNext()) {
+                    long base = (long) checkId(ids.nextInt()) * 8;
+                    off[k] = Integer.toUnsignedLong(ord2pos.getInt(base));
+                    len[k] = ord2pos.getInt(base + 4);
+                    lo = Math.min(lo, off[k]);
+                    hi = Math.max(hi, off[k] + len[k]);
+                    k++;
+                }
+                if (hi - lo <= maxSpan) {
+                    int span = (int) (hi - lo);
+                    if (buf.length < span) buf = new byte[Math.max(span, buf.length * 2)];
+                    str.get(lo, buf, 0, span);
+                    for (int i = 0; i < k; i++) onString.accept(new String(buf, (int) (off[i] - lo), len[i], StandardCharsets.UTF_8));
+                } else {
+                    for (int i = 0; i < k; i++) onString.accept(str.utf8(off[i], len[i]));
+                }
+                total += k;
+            }
+            return total;
+        }
+
+        private int checkId(int id) {
+            if (id < 0 || id >= n) throw new IndexOutOfBoundsException("id " + id + " size " + n);
+            return id;
+        }
+    }
+
+    /**
+      Cursor sobre una posting list, decodificada del mapeo de a un bloque (PostingFormat.BLOCK valores).
+      advance(target) hace galloping: en listas en bloques primero sobre los primeros valores de la
+      tabla de skip (decodificando solo el bloque destino) y después dentro del bloque; en listas
+      delta + varint (cortas, o .pl del formato anterior) se decodifica de a BLOCK valores.
+      En listas bitmap (ver Bitmap) los containers se cargan al primer uso y advance / skip usan
+      rank / select. skip(n) salta bloques o containers enteros.
+     */
+    public static final class Postings implements OrdinalCursor {
+        static final Postings EMPTY = new Postings(null, false, 0L, 0);
+
+        private final MappedFile pl;
+        private final boolean blocked, dense;
+        private final long skip;                // blocked: inicio de la tabla de skip; dense: de la cabecera
+        private final MappedFile.Cursor cursor; // varint: posición del próximo valor sin decodificar
+        private final int size;
+        private final int[] buf;
+        private byte[] scratch;
+        private Bitmap bitmap;
+        private int bufLen, bufPos;
+        private int base;                       // índice en la lista de buf[0]
+        private int block = -1;
+        private int from;                       // dense: valor mínimo del próximo fill
+
+        /** tagged: el .pl tiene PostingFormat.MAGIC (las listas largas empiezan con su kind). */
+        Postings(MappedFile pl, boolean tagged, long off, int count) {
+            int kind = tagged && count >= PostingFormat.BLOCK ? pl.get(off) : 0;
+            this.pl = pl;
+            this.blocked = kind == PostingFormat.KIND_BLOCKS;
+            this.dense = kind == PostingFormat.KIND_BITMAP;
+            this.skip = off + 1;
+            this.cursor = pl == null || kind != 0 ? null : pl.cursor(off);
+            this.size = count;
+            this.buf = new int[Math.min(count, PostingFormat.BLOCK)];
+        }
+
+        Postings(Bitmap bitmap) {
+            this.pl = null;
+            this.blocked = false;
+            this.dense = true;
+            this.skip = 0L;
+            this.cursor = null;
+            this.bitmap = bitmap;
+            this.size = bitmap.cardinality();
+            this.buf = new int[Math.min(size, PostingFormat.BLOCK)];
+        }
+
+        private Bitmap bm() {
+            if (bitmap == null) bitmap = Bitmap.read(pl, skip);
+            return bitmap;
+        }
+
+        /** La lista completa como Bitmap si está guardada así y no se consumió nada; si no, null. */
+        Bitmap wholeBitmap() {
+            return dense && base + bufPos == 0 && bufLen == 0 ? bm() : null;
+        }
+
+        /** Cantidad total de la lista (el count del .dir). */
+        public int size() { return size; }
+
+        /** Cantidad de valores aún no consumidos. */
+        public int remaining() { return size - base - bufPos; }
+
+        @Override public boolean hasNext() { return base + bufPos < size; }
+
+        @Override public int nextInt() {
+            if (bufPos == bufLen && !refill()) throw new NoSuchElementException();
+            return buf[bufPos++];
+        }
+
+        @Override public long cost() { return remaining(); }
+
+        @Override public int advance(int target) {
+            while (true) {
+                if (bufPos == bufLen && !refill()) return NO_MORE;
+                if (buf[bufLen - 1] < target) {
+                    if (blocked) seekBlock(target);
+                    else if (dense) { base = bm().rank(target); bufPos = bufLen = 0; from = target; }
+                    else { base += bufLen; bufPos = bufLen = 0; }
+                    continue;
+                }
+                int lo = bufPos;
+                if (buf[lo] < target) {
+                    int step = 1, hi = lo + 1;
+                    while (hi < bufLen && buf[hi] < target) { lo = hi; step <<= 1; hi = lo + step; }
+                    int i = Arrays.binarySearch(buf, lo + 1, Math.min(hi, bufLen - 1) + 1, target);
+                    lo = i >= 0 ? i : -i - 1;
+                }
+                bufPos = lo;
+                return buf[bufPos++];
+            }
+        }
+
+        /** Descarta los próximos n valores (paginado por offset); devuelve cuántos se descartaron. */
+        public int skip(int n) {
+            int target = (int) Math.min((long) base + bufPos + Math.max(0, n), size);
+            int skipped = target - base - bufPos;
+            if (blocked) {
+                int b = target / PostingFormat.BLOCK;
+                if (target < size && b != block) load(b);
+                else if (target == size) { base = size; bufPos = bufLen = 0; return skipped; }
+                bufPos = target - base;
+            } else if (dense) {
+                if (target < base + bufLen) bufPos = target - base;
+                else {
+                    base = target;
+                    bufPos = bufLen = 0;
+                    if (target < size) from = bm().select(target);
+                }
+            } else {
+                while (base + bufLen < target) { base += bufLen; bufPos = bufLen = 0; refill(); }
+                bufPos = target - base;
+            }
+            return skipped;
+        }
+
+        private boolean refill() {
+            if (blocked) {
+                int next = base + bufLen;
+                if (next >= size) return false;
+                load(next / PostingFormat.BLOCK);
+                return true;
+            }
+            if (dense) {
+                int f = bufLen > 0 ? buf[bufLen - 1] + 1 : from;
+                base += bufLen;
+                bufPos = 0;
+                bufLen = base >= size ? 0 : bm().fill(f, buf, buf.length);
+                return bufLen > 0;
+            }
+            base += bufLen;
+            bufPos = 0;
+            bufLen = Math.min(buf.length, size - base);
+            int v = base == 0 ? 0 : buf[buf.length - 1];
+            for (int i = 0; i < bufLen; i++) {
+                int d = cursor.varint32();
+                v = base + i == 0 ? d : v + d;
+                buf[i] = v;
+            }
+            return bufLen > 0;
+        }
+
+        private int first(int b) { return pl.getInt(skip + (long) b * PostingFormat.SKIP_ENTRY); }
+
+        /** Salta al último bloque posterior al actual cuyo primer valor es <= target (o al siguiente). */
+        private void seekBlock(int target) {
+            int n = PostingFormat.blocks(size), lo = block + 1;
+            if (lo >= n) { base = size; bufPos = bufLen = 0; return; }
+            if (first(lo) <= target) {
+                int step = 1, hi = lo + 1;
+                while (hi < n && first(hi) <= target) { lo = hi; step <<= 1; hi = lo + step; }
+                hi = Math.min(hi, n) - 1;
+                while (lo < hi) {
+                    int mid = (lo + hi + 1) >>> 1;
+                    if (first(mid) <= target) lo = mid; else hi = mid - 1;
+                }
+            }
+            load(lo);
+        }
+
+        private void load(int b) {
+            long e = skip + (long) b * PostingFormat.SKIP_ENTRY;
+            block = b;
+            base = b * PostingFormat.BLOCK;
+            bufLen = Math.min(PostingFormat.BLOCK, size - base);
+            bufPos = 0;
+            if (scratch == null) scratch = new byte[PostingFormat.SCRATCH];
+            PostingFormat.readBlock(pl, pl.getLongLE(e + 4), pl.getInt(e), bufLen, buf, scratch);
+        }
+    }
+
+    /**
+      Índice de posting lists: .dir [key:u32 * keyInts, off:u64 LE, count:u32] + .pl
+      (delta + varint, bloques con tabla de skip o bitmap; ver PostingFormat).
+     */
+    public static final class PostingIndex {
+        private final MappedFile dir, pl;
+        private final int keyInts, entry;
+        private final boolean tagged;
+
+        PostingIndex(Source src, String base, int keyInts) throws IOException {
+            this.dir = src.file(base + ".dir");
+            this.pl = src.file(base + ".pl");
+            this.keyInts = keyInts;
+            this.entry = 4 * keyInts + 12;
+            this.tagged = PostingFormat.isTagged(pl);
+        }
+
+        public long keys() { return dir.size() / entry; }
+
+        /** Índice de la entrada con esa key (binary search) o -1. */
+        public long find(long key) {
+            long lo = 0, hi = keys() - 1;
+            while (lo <= hi) {
+                long mid = (lo + hi) >>> 1;
+                long k = key(mid);
+                if (k == key) return mid;
+                if (k < key) lo = mid + 1; else hi = mid - 1;
+            }
+            return -1;
+        }
+
+        public long key(long e) {
+            long base = e * entry;
+            return keyInts == 1 ? dir.getInt(base) : dir.getLong(base);
+        }
+        public long offset(long e) { return dir.getLongLE(e * entry + 4L * keyInts); }
+        public int count(long e) { return dir.getInt(e * entry + 4L * keyInts + 8); }
+
+        /** Cantidad de ordinales de la key (0 si no está), sin decodificar la lista. */
+        public int countOf(long key) {
+            long e = find(key);
+            return e < 0 ? 0 : count(e);
+        }
+
+        /** Cursor sobre los ordinales de la key (vacío si no está). */
+        public Postings postings(long key) {
+            long e = find(key);
+            return e < 0 ? Postings.EMPTY : postingsAt(e);
+        }
+
+        /** Cursor sobre la lista de la entrada e del .dir. */
+        public Postings postingsAt(long e) {
+            int count = count(e);
+            return new Postings(pl, tagged, offset(e), count);
+        }
+
+        /** Los ordinales de la key como Bitmap (el guardado si la lista es densa; si no, se arma). */
+        public Bitmap bitmap(long key) {
+            long e = find(key);
+            if (e < 0) return Bitmap.EMPTY;
+            Postings p = postingsAt(e);
+            Bitmap b = p.wholeBitmap();
+            return b != null ? b : Bitmap.of(p);
+        }
+
+        /** Emite los ordinales de la key en orden creciente; devuelve cuántos. */
+        public int forEach(long key, IntConsumer onOrdinal) {
+            return forEach(key, 0, Integer.MAX_VALUE, onOrdinal);
+        }
+
+        /** Página [offset, offset + limit) de los ordinales de la key; devuelve cuántos emitió. */
+        public int forEach(long key, int offset, int limit, IntConsumer onOrdinal) {
+            long e = find(key);
+            if (e < 0) return 0;
+            Postings p = postingsAt(e);
+            p.skip(offset);
+            int n = 0;
+            while (n < limit && p.hasNext()) {
+                onOrdinal.accept(p.nextInt());
+                n++;
+            }
+            return n;
+        }
+    }
+
+    /** Visitor de vecinos: ordinal del vecino y label id de la arista. */
+    @FunctionalInterface
+    public interface NeighborConsumer { void accept(int nbr, int labelId); }
+
+    /**
+      Adyacencia CSR (ver AdjacencyBuilder): <x>.off u64 LE (nodeCount + 1) y <x>.nbr con
+      entradas [label:u32][nbr:u32] ordenadas por (label, nbr) dentro de cada nodo.
+      Sin archivos (directorios anteriores) todo nodo tiene grado 0.
+     */
+    public static final class Adjacency {
+        private final MappedFile off, nbr;
+        private final int nodes;
+
+        Adjacency(Source src, String base) throws IOException {
+            this.off = src.file(base + ".off");
+            this.nbr = src.file(base + ".nbr");
+            this.nodes = (int) Math.max(0, off.size() / 8 - 1);
+        }
+
+        private long begin(int node) { return off.getLongLE((long) node * 8); }
+        private long end(int node) { return off.getLongLE((long) node * 8 + 8); }
+        private int label(long e) { return nbr.getInt(e * 8); }
+        private int target(long e) { return nbr.getInt(e * 8 + 4); }
+
+        public int degree(int node) {
+            if (node < 0 || node >= nodes) return 0;
+            return (int) (end(node) - begin(node));
+        }
+
+        /** Grado restringido a un label (dos binary search sobre el rango del nodo). */
+        public int degree(int node, int labelId) {
+            if (node < 0 || node >= nodes) return 0;
+            long lo = lowerBound(begin(node), end(node), labelId);
+            return (int) (lowerBound(lo, end(node), labelId + 1L) - lo);
+        }
+
+        /** Todos los vecinos (con el label de la arista), ordenados por (label, vecino). */
+        public int forEach(int node, NeighborConsumer onNeighbor) {
+            if (node < 0 || node >= nodes) return 0;
+            long b = begin(node), e = end(node);
+            for (long i = b; i < e; i++) onNeighbor.accept(target(i), label(i));
+            return (int) (e - b);
+        }
+
+        /** Vecinos por aristas de un label (labelId < 0 = todos), en orden creciente. */
+        public int forEach(int node, int labelId, IntConsumer onNeighbor) {
+            if (node < 0 || node >= nodes) return 0;
+            long b = begin(node), e = end(node);
+            if (labelId >= 0) {
+                b = lowerBound(b, e, labelId);
+                e = lowerBound(b, e, labelId + 1L);
+            }
+            for (long i = b; i < e; i++) onNeighbor.accept(target(i));
+            return (int) (e - b);
+        }
+
+        /** Primera entrada en [lo, hi) con label >= labelId. */
+        private long lowerBound(long lo, long hi, long labelId) {
+            while (lo < hi) {
+                long mid = (lo + hi) >>> 1;
+                if (label(mid) < labelId) lo = mid + 1; else hi = mid;
+            }
+            return lo;
+        }
+    }
+
+    /** Visitor sin alocación de las propiedades de un nodo (ids de diccionario). */
+    @FunctionalInterface
+    public interface PropertyConsumer { void accept(int nameId, int valueId); }
+
+    private final Path dir;
+    private final Dict nodeIds, edgeIds, labels, propNames, propVals;
+    private final MappedFile nodesOff, nodesRec, edgesOff, edgesRec;
+    private final PostingIndex edgesByLabel, srcByLabel, dstByLabel, nodesByProp;
+    private final Adjacency adjOut, adjIn;
+    private final NumericColumns numeric;
+    private final NodeColumns columns;
+    private final GraphStats stats;
+
+    private GraphReader(Path dir) throws IOException {
+        this.dir = dir;
+        Source src = Source.of(dir);
+        this.nodeIds = new Dict(src, "nodes.id");
+        this.edgeIds = new Dict(src, "edges.id");
+        this.labels = new Dict(src, "dict.labels");
+        this.propNames = new Dict(src, "dict.propname");
+        this.propVals = new Dict(src, "dict.propval");
+        this.nodesOff = src.file("nodes.off");
+        this.nodesRec = src.file("nodes.rec");
+        this.edgesOff = src.file("edges.off");
+        this.edgesRec = src.file("edges.rec");
+        this.edgesByLabel = new PostingIndex(src, "idx.edgesByLabel", 1);
+        this.srcByLabel = new PostingIndex(src, "idx.srcByLabel", 1);
+        this.dstByLabel = new PostingIndex(src, "idx.dstByLabel", 1);
+        this.nodesByProp = new PostingIndex(src, "idx.nodesByProp", 2);
+        this.adjOut = new Adjacency(src, "adj.out");
+        this.adjIn = new Adjacency(src, "adj.in");
+        this.numeric = new NumericColumns(src);
+        this.columns = new NodeColumns(src, nodeCount());
+        this.stats = GraphStats.open(src);
+    }
+
+    /** outDir de un ingest o contenedor .cbin (GraphPacker). */
+    public static GraphReader open(Path outDir) throws IOException {
+        return new GraphReader(outDir);
+    }
+
+    public Path dir() { return dir; }
+
+    public Dict nodeIds() { return nodeIds; }
+    public Dict edgeIds() { return edgeIds; }
+    public Dict labels() { return labels; }
+    public Dict propNames() { return propNames; }
+    public Dict propValues() { return propVals; }
+
+    public PostingIndex edgesByLabel() { return edgesByLabel; }
+    public PostingIndex srcByLabel() { return srcByLabel; }
+    public PostingIndex dstByLabel() { return dstByLabel; }
+    public PostingIndex nodesByProp() { return nodesByProp; }
+    public Adjacency outAdjacency() { return adjOut; }
+    public Adjacency inAdjacency() { return adjIn; }
+
+    public int nodeCount() { return (int) (nodesOff.size() / 8); }
+    public int edgeCount() { return (int) (edgesOff.size() / 8); }
+
+    /** Estadísticas escritas en el ingest (graph.stats), o null si el directorio no las tiene. */
+    public GraphStats stats() { return stats; }
+
+    // ===== nodos =====
+
+    public int nodeOrdinal(String nodeId) { return nodeIds.idOf(nodeId); }
+    public String nodeId(int ord) { return nodeIds.get(ord); }
+
+    /** Label id del nodo (primer varint de nodes.rec). */
+    public int nodeLabelId(int ord) {
+        return nodesRec.cursor(nodesOff.getLongLE((long) ord * 8)).varint32();
+    }
+
+    /** Recorre (nameId, valueId) del nodo; devuelve el label id. */
+    public int forEachNodeProperty(int ord, PropertyConsumer onProp) {
+        MappedFile.Cursor c = nodesRec.cursor(nodesOff.getLongLE((long) ord * 8));
+        int label = c.varint32();
+        int n = c.varint32();
+        for (int i = 0; i < n; i++) {
+            int name = c.varint32();
+            onProp.accept(name, c.varint32());
+        }
+        return label;
+    }
+
+    public BinaryGraphFiles.NodeView node(int ord) {
+        Map<String,String> props = new LinkedHashMap<>();
+        int label = forEachNodeProperty(ord, (name, val) -> props.put(propNames.get(name), propVals.get(val)));
+        return new BinaryGraphFiles.NodeView(labels.get(label), props);
+    }
+
+    /** Nodo por id o null si no existe. */
+    public BinaryGraphFiles.NodeView node(String nodeId) {
+        int ord = nodeOrdinal(nodeId);
+        return ord < 0 ? null : node(ord);
+    }
+
+    // ===== aristas =====
+
+    public int edgeOrdinal(String edgeId) { return edgeIds.idOf(edgeId); }
+    public String edgeId(int ord) { return edgeIds.get(ord); }
+
+    /** Label id de la arista (primer varint de edges.rec). */
+    public int edgeLabelId(int ord) { return edgeRecord(ord).varint32(); }
+
+    /** Ordinal del nodo origen, o -1 si el id no existía al ingerir. */
+    public int edgeSource(int ord) {
+        MappedFile.Cursor c = edgeRecord(ord);
+        c.varint();
+        return c.varint32();
+    }
+
+    /** Ordinal del nodo destino, o -1 si el id no existía al ingerir. */
+    public int edgeTarget(int ord) {
+        MappedFile.Cursor c = edgeRecord(ord);
+        c.varint();
+        c.varint();
+        return c.varint32();
+    }
+
+    private MappedFile.Cursor edgeRecord(int ord) {
+        return edgesRec.cursor(edgesOff.getLongLE((long) ord * 8));
+    }
+
+    /** Cantidad de aristas con ese label: el count guardado en idx.edgesByLabel.dir, O(1) sin decodificar. */
+    public int edgeCountByLabel(String label) {
+        int l = labels.idOf(label);
+        return l < 0 ? 0 : edgesByLabel.countOf(l);
+    }
+
+    /**
+      Ordinales de las aristas con ese label, crecientes (binary search en el .dir y decodificación
+      secuencial de la posting list sobre el mapeo: el read-ahead lo hace el kernel).
+      Devuelve la cantidad emitida.
+     */
+    public int forEachEdgeByLabel(String label, IntConsumer onOrdinal) {
+        int l = labels.idOf(label);
+        return l < 0 ? 0 : edgesByLabel.forEach(l, onOrdinal);
+    }
+
+    /** Página [offset, offset + limit) de las aristas con ese label (offset salta bloques enteros). */
+    public int forEachEdgeByLabel(String label, int offset, int limit, IntConsumer onOrdinal) {
+        int l = labels.idOf(label);
+        return l < 0 ? 0 : edgesByLabel.forEach(l, offset, limit, onOrdinal);
+    }
+
+    /** Igual, resolviendo cada ordinal a su id vía edges.id.ord2pos (accedido en orden creciente). */
+    public int forEachEdgeIdByLabel(String label, Consumer<String> onEdgeId) {
+        return forEachEdgeByLabel(label, ord -> onEdgeId.accept(edgeIds.get(ord)));
+    }
+
+    public int forEachEdgeIdByLabel(String label, int offset, int limit, Consumer<String> onEdgeId) {
+        return forEachEdgeByLabel(label, offset, limit, ord -> onEdgeId.accept(edgeIds.get(ord)));
+    }
+
+    // ===== nodos origen / destino por label =====
+
+    /** Nodos origen (ordinales, crecientes y sin repetir) de aristas con ese label. */
+    public Postings sourceNodesByLabel(String label) {
+        int l = labels.idOf(label);
+        return l < 0 ? Postings.EMPTY : srcByLabel.postings(l);
+    }
+
+    /** Nodos destino (ordinales, crecientes y sin repetir) de aristas con ese label. */
+    public Postings destinationNodesByLabel(String label) {
+        int l = labels.idOf(label);
+        return l < 0 ? Postings.EMPTY : dstByLabel.postings(l);
+    }
+
+    /** Ids de los nodos origen, materializados por lotes (ver Dict.forEach). */
+    public int forEachSourceNodeByLabel(String label, Consumer<String> onNodeId) {
+        return nodeIds.forEach(sourceNodesByLabel(label), onNodeId);
+    }
+
+    /** Ids de los nodos destino, materializados por lotes (ver Dict.forEach). */
+    public int forEachDestinationNodeByLabel(String label, Consumer<String> onNodeId) {
+        return nodeIds.forEach(destinationNodesByLabel(label), onNodeId);
+    }
+
+    // ===== vecinos (adyacencia CSR) =====
+
+    public int outDegree(int ord) { return adjOut.degree(ord); }
+    public int inDegree(int ord) { return adjIn.degree(ord); }
+
+    /** Vecinos salientes del nodo; label null = cualquiera. Devuelve la cantidad emitida. */
+    public int forEachOutNeighbor(int ord, String label, IntConsumer onNeighbor) {
+        return forEachNeighbor(adjOut, ord, label, onNeighbor);
+    }
+
+    /** Vecinos entrantes del nodo; label null = cualquiera. Devuelve la cantidad emitida. */
+    public int forEachInNeighbor(int ord, String label, IntConsumer onNeighbor) {
+        return forEachNeighbor(adjIn, ord, label, onNeighbor);
+    }
+
+    private int forEachNeighbor(Adjacency adj, int ord, String label, IntConsumer onNeighbor) {
+        if (label == null) return adj.forEach(ord, -1, onNeighbor);
+        int l = labels.idOf(label);
+        return l < 0 ? 0 : adj.forEach(ord, l, onNeighbor);
+    }
+
+    // ===== nodos por propiedad =====
+
+    /**
+      Nodos con propName = propValue (valor normalizado a minúsculas, como en la ingesta).
+      Devuelve la cantidad de ordinales emitidos.
+     */
+    public int forEachNodeByProperty(String propName, String propValue, IntConsumer onOrdinal) {
+        long key = propertyKey(propName, propValue);
+        return key < 0 ? 0 : nodesByProp.forEach(key, onOrdinal);
+    }
+
+    /**
+      Nodos con propName = propValue como cursor (vacío si no hay), para combinar con
+      sourceNodesByLabel / destinationNodesByLabel vía PostingJoin.and / or.
+     */
+    public Postings nodesByProperty(String propName, String propValue) {
+        long key = propertyKey(propName, propValue);
+        return key < 0 ? Postings.EMPTY : nodesByProp.postings(key);
+    }
+
+    /** Key (propNameId, propValId) de idx.nodesByProp o -1 si el nombre o el valor no existen. */
+    private long propertyKey(String propName, String propValue) {
+        int pn = propNames.idOf(propName);
+        if (pn < 0) return -1;
+        int pv = propVals.idOf(propValue.toLowerCase(Locale.ROOT));
+        if (pv < 0) return -1;
+        return ((long) pn << 32) | (pv & 0xFFFFFFFFL);
+    }
+
+    // ===== columnas por propiedad (ver NodeColumns) =====
+
+    /** Columna de valueIds de la propiedad, o null si no hay. */
+    public NodeColumns.Column column(String propName) {
+        int pn = propNames.idOf(propName);
+        return pn < 0 ? null : columns.column(pn);
+    }
+
+    /**
+      Nodos con propName = propValue recorriendo solo la columna (sin índice): para filtros que
+      combinan varias columnas en una pasada. Devuelve la cantidad emitida.
+     */
+    public int scanNodesByProperty(String propName, String propValue, IntConsumer onOrdinal) {
+        NodeColumns.Column c = column(propName);
+        int pv = propVals.idOf(propValue.toLowerCase(Locale.ROOT));
+        if (c == null || pv < 0) return 0;
+        int[] count = {0};
+        c.forEach((ord, v) -> {
+            if (v == pv) { onOrdinal.accept(ord); count[0]++; }
+        });
+        return count[0];
+    }
+
+    // ===== propiedades numéricas (ver NumericColumns) =====
+
+    /** Columna de la propiedad si todos sus valores son enteros, o null. */
+    public NumericColumns.Column numericProperty(String propName) {
+        int pn = propNames.idOf(propName);
+        return pn < 0 ? null : numeric.column(pn);
+    }
+
+    /**
+      Nodos con lo <= propName <= hi (inclusive), en orden de valor, directo del índice de rango.
+      Propiedad inexistente o no numérica: nada. Devuelve la cantidad emitida.
+     */
+    public int forEachNodeByPropRange(String propName, long lo, long hi, IntConsumer onOrdinal) {
+        NumericColumns.Column c = numericProperty(propName);
+        return c == null ? 0 : c.forEachInRange(lo, hi, onOrdinal);
+    }
+
+    /** Los mismos nodos como cursor de ordinales crecientes, para PostingJoin. */
+    public Postings nodesByPropRange(String propName, long lo, long hi) {
+        NumericColumns.Column c = numericProperty(propName);
+        return c == null ? Postings.EMPTY : c.cursorInRange(lo, hi);
+    }
+}
@@ -0,0 +1,149 @@
+package cbin.io;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+  Estadísticas del grafo (graph.stats, lo escribe cbin.core.GraphStatsBuilder al final del
+  ingest). Se lee entero al abrir (son unos KB) y cada consulta es un acceso a un array:
+    [magic:8][version:u32][nodes:u32][edges:u32]
+    nodeLabels : [L:u32] [labelId:u32][count:u32] * L
+    edgeLabels : [L:u32] [labelId:u32][count:u32] * L
+    props      : [P:u32] por propiedad [propNameId:u32][nodes:u32][ndv:u32][H:u32] [valueId:u32][count:u32] * H
+                 (nodes = nodos con valor, ndv = valores distintos, H = heavy hitters por count desc)
+    degrees    : out e in, [B:u32][max:u32] count:u32 * B   (bucket 0 = grado 0, b = [2^(b-1), 2^b))
+    files      : [F:u32] [nameLen:u16][name UTF-8][size:u64] * F   (tamaños del outDir al escribirlo)
+  Ids de label / propiedad / valor son los de los diccionarios del mismo directorio.
+ */
+public final class GraphStats {
+
+    public static final byte[] MAGIC = {'C', 'B', 'S', 'T', 0, 0, 0, 1};
+    public static final int VERSION = 1;
+    public static final int HEAVY_HITTERS = 16;
+    public static final int DEGREE_BUCKETS = 33;
+
+    /** Estadísticas de una propiedad. */
+    public static final class Property {
+        public final int nodes, ndv;
+        public final int[] heavyValueIds, heavyCounts;
+
+        Property(int nodes, int ndv, int[] heavyValueIds, int[] heavyCounts) {
+            this.nodes = nodes; this.ndv = ndv; this.heavyValueIds = heavyValueIds; this.heavyCounts = heavyCounts;
+        }
+
+        /**
+          Nodos estimados con ese valor: exacto si es heavy hitter; si no, lo que queda repartido
+          parejo entre los demás valores distintos (cota para elegir el predicado más selectivo).
+         */
+        public long estimate(int valueId) {
+            long rest = nodes;
+            for (int i = 0; i < heavyValueIds.length; i++) {
+                if (heavyValueIds[i] == valueId) return heavyCounts[i];
+                rest -= heavyCounts[i];
+            }
+            int others = ndv - heavyValueIds.length;
+            return others <= 0 ? 0 : Math.min(rest, (rest + others - 1) / others);
+        }
+    }
+
+    private final int nodes, edges;
+    private final int[] nodeLabelCounts, edgeLabelCounts;      // por labelId
+    private final Property[] props;                             // por propNameId (null = sin valores)
+    private final int[] outDegrees, inDegrees;
+    private final int maxOut, maxIn;
+    private final Map<String, Long> files = new LinkedHashMap<>();
+
+    private GraphStats(MappedFile f) {
+        In in = new In(f, 12);
+        this.nodes = in.u32();
+        this.edges = in.u32();
+        this.nodeLabelCounts = readCounts(in);
+        this.edgeLabelCounts = readCounts(in);
+
+        Property[] ps = new Property[0];
+        for (int i = 0, n = in.u32(); i < n; i++) {
+            int pn = in.u32(), count = in.u32(), ndv = in.u32(), h = in.u32();
+            int[] ids = new int[h], counts = new int[h];
+            for (int j = 0; j < h; j++) { ids[j] = in.u32(); counts[j] = in.u32(); }
+            if (pn >= ps.length) ps = Arrays.copyOf(ps, pn + 1);
+            ps[pn] = new Property(count, ndv, ids, counts);
+        }
+        this.props = ps;
+
+        this.outDegrees = new int[in.u32()];
+        this.maxOut = in.u32();
+        for (int i = 0; i < outDegrees.length; i++) outDegrees[i] = in.u32();
+        this.inDegrees = new int[in.u32()];
+        this.maxIn = in.u32();
+        for (int i = 0; i < inDegrees.length; i++) inDegrees[i] = in.u32();
+
+        for (int i = 0, n = in.u32(); i < n; i++) {
+            int len = ((f.get(in.p) & 0xFF) << 8) | (f.get(in.p + 1) & 0xFF);
+            String name = f.utf8(in.p + 2, len);
+            in.p += 2 + len;
+            files.put(name, f.getLong(in.p));
+            in.p += 8;
+        }
+    }
+
+    /** Lectura secuencial de enteros de ancho fijo. */
+    private static final class In {
+        final MappedFile f;
+        long p;
+        In(MappedFile f, long p) { this.f = f; this.p = p; }
+        int u32() { int v = f.getInt(p); p += 4; return v; }
+    }
+
+    /** [id:u32][count:u32] * L como array indexado por id. */
+    private static int[] readCounts(In in) {
+        int[] counts = new int[0];
+        for (int i = 0, n = in.u32(); i < n; i++) {
+            int id = in.u32();
+            if (id >= counts.length) counts = Arrays.copyOf(counts, id + 1);
+            counts[id] = in.u32();
+        }
+        return counts;
+    }
+
+    /**
+      null si no hay graph.stats (directorio anterior) o si es la base de un store con deltas:
+      ahí describen solo la base; compact las vuelve a escribir para el store entero.
+     */
+    static GraphStats open(GraphReader.Source src) throws IOException {
+        if (src.file(SegmentedGraph.MANIFEST).size() > 0) return null;
+        MappedFile f = src.file("graph.stats");
+        if (f.size() < 12) return null;
+        for (int i = 0; i < MAGIC.length; i++) if (f.get(i) != MAGIC[i]) return null;
+        if (f.getInt(8) != VERSION) throw new IOException(f.path() + ": versión de graph.stats " + f.getInt(8) + " no soportada");
+        return new GraphStats(f);
+    }
+
+    public int nodeCount() { return nodes; }
+    public int edgeCount() { return edges; }
+
+    public int nodesWithLabel(int labelId) { return labelId >= 0 && labelId < nodeLabelCounts.length ? nodeLabelCounts[labelId] : 0; }
+    public int edgesWithLabel(int labelId) { return labelId >= 0 && labelId < edgeLabelCounts.length ? edgeLabelCounts[labelId] : 0; }
+
+    /** Estadísticas de la propiedad, o null si ningún nodo tiene valor. */
+    public Property property(int propNameId) {
+        return propNameId >= 0 && propNameId < props.length ? props[propNameId] : null;
+    }
+
+    /** Histograma de grados salientes / entrantes: cantidad de nodos por bucket (ver bucket). */
+    public int[] outDegreeHistogram() { return outDegrees.clone(); }
+    public int[] inDegreeHistogram() { return inDegrees.clone(); }
+    public int maxOutDegree() { return maxOut; }
+    public int maxInDegree() { return maxIn; }
+
+    /** Bucket del histograma de un grado: 0 -> 0, [2^(b-1), 2^b) -> b. */
+    public static int bucket(int degree) { return degree <= 0 ? 0 : 32 - Integer.numberOfLeadingZeros(degree); }
+
+    /** Tamaño en bytes de cada archivo del outDir cuando se escribieron las estadísticas. */
+    public Map<String, Long> fileSizes() { return Collections.unmodifiableMap(files); }
+
+    public long totalSize() {
+        long s = 0;
+        for (long v : files.values()) s += v;
+        return s;
+    }
+}
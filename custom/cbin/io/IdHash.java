@@ -0,0 +1,125 @@
+package cbin.io;
+
+import java.util.function.IntPredicate;
+
+/**
+  Hash perfecto mínimo (estilo BBHash) de un pool de ids (nodes.id / edges.id): bytes del id -> ordinal.
+  Archivo <pool>.mph (lo arma cbin.core.IdHashBuilder):
+    [magic:8][n:u32][levels:u32][fallback:u32]
+    levels * [bitOff:u64 LE][bits:u64 LE]       niveles concatenados en words, alineados a 64
+    words    : u64 BE * W
+    ranks    : u32 BE * (W / 8 + 1)              bits en 1 antes de cada bloque de 512 bits
+    fallback : [hash:u64 BE][ord:u32 BE] * F     ids que no se ubicaron en ningún nivel, por hash
+    ords     : u32 BE * (n - F)                  rank del bit -> ordinal
+  Lookup: hash64 del id y, nivel por nivel, una posición; el primer bit en 1 da por rank el
+  índice en ords. Un id que no está en el pool también cae en algún bit: el llamador verifica
+  el ordinal candidato contra el pool (GraphReader.Dict compara con <pool>.str).
+ */
+public final class IdHash {
+
+    public static final byte[] MAGIC = {'C', 'B', 'M', 'P', 'H', 0, 0, 1};
+    public static final double GAMMA = 2.0;
+    public static final int MAX_LEVELS = 32;
+    static final int HEADER = 20, LEVEL_ENTRY = 16;
+
+    private final MappedFile f;
+    private final int levels, fallback;
+    private final long[] levelOff, levelBits;
+    private final long wordsPos, ranksPos, fallbackPos, ordsPos;
+
+    private IdHash(MappedFile f) {
+        this.f = f;
+        this.levels = f.getInt(12);
+        this.fallback = f.getInt(16);
+        this.levelOff = new long[levels];
+        this.levelBits = new long[levels];
+        long words = 0;
+        for (int l = 0; l < levels; l++) {
+            levelOff[l] = f.getLongLE(HEADER + (long) l * LEVEL_ENTRY);
+            levelBits[l] = f.getLongLE(HEADER + (long) l * LEVEL_ENTRY + 8);
+            words = (levelOff[l] + levelBits[l]) >>> 6;
+        }
+        this.wordsPos = HEADER + (long) levels * LEVEL_ENTRY;
+        this.ranksPos = wordsPos + 8 * words;
+        this.fallbackPos = ranksPos + 4 * ((words >>> 3) + 1);
+        this.ordsPos = fallbackPos + 12L * fallback;
+    }
+
+    /** null si el archivo no existe (vacío) o no es un .mph. */
+    public static IdHash open(MappedFile f) {
+        if (f.size() < HEADER) return null;
+        for (int i = 0; i < MAGIC.length; i++) if (f.get(i) != MAGIC[i]) return null;
+        return new IdHash(f);
+    }
+
+    /**
+      Ordinal del id key[off, off+len): el candidato que el hash indica si isKey lo acepta, o -1.
+      (En el fallback puede haber varios con el mismo hash: se prueban todos).
+     */
+    public int ordinalOf(byte[] key, int off, int len, IntPredicate isKey) {
+        long h = hash(key, off, len);
+        for (int l = 0; l < levels; l++) {
+            long bit = levelOff[l] + position(h, l, levelBits[l]);
+            long w = f.getLong(wordsPos + 8 * (bit >>> 6));
+            if ((w & (1L << bit)) != 0) {
+                int ord = f.getInt(ordsPos + 4 * rank(bit, w));
+                return isKey.test(ord) ? ord : -1;
+            }
+        }
+        int lo = 0, hi = fallback - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (Long.compareUnsigned(f.getLong(fallbackPos + 12L * mid), h) < 0) lo = mid + 1; else hi = mid;
+        }
+        for (int i = lo; i < fallback && f.getLong(fallbackPos + 12L * i) == h; i++) {
+            int ord = f.getInt(fallbackPos + 12L * i + 8);
+            if (isKey.test(ord)) return ord;
+        }
+        return -1;
+    }
+
+    /** Bits en 1 antes de bit (w = la palabra que lo contiene). */
+    private long rank(long bit, long w) {
+        long word = bit >>> 6, block = word >>> 3;
+        long r = Integer.toUnsignedLong(f.getInt(ranksPos + 4 * block));
+        for (long j = block << 3; j < word; j++) r += Long.bitCount(f.getLong(wordsPos + 8 * j));
+        return r + Long.bitCount(w & ((1L << bit) - 1));
+    }
+
+    // ===== hash (compartido con IdHashBuilder) =====
+
+    /** Posición del hash en el nivel (rehash por nivel con el finalizador de splitmix64). */
+    public static long position(long h, int level, long bits) {
+        long x = h + (level + 1) * 0x9E3779B97F4A7C15L;
+        x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+        x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+        x ^= x >>> 31;
+        return Long.remainderUnsigned(x, bits);
+    }
+
+    /** MurmurHash64A de key[off, off+len). */
+    public static long hash(byte[] key, int off, int len) {
+        final long m = 0xC6A4A7935BD1E995L;
+        final int r = 47;
+        long h = 0x5F1D2C3BL ^ (len * m);
+        int end = off + (len & ~7);
+        for (int i = off; i < end; i += 8) {
+            long k = (key[i] & 0xFFL) | (key[i + 1] & 0xFFL) << 8 | (key[i + 2] & 0xFFL) << 16 | (key[i + 3] & 0xFFL) << 24
+                   | (key[i + 4] & 0xFFL) << 32 | (key[i + 5] & 0xFFL) << 40 | (key[i + 6] & 0xFFL) << 48 | (key[i + 7] & 0xFFL) << 56;
+            k *= m;
+            k ^= k >>> r;
+            k *= m;
+            h ^= k;
+            h *= m;
+        }
+        int tail = len & 7;
+        if (tail > 0) {
+            for (int i = tail - 1; i >= 0; i--) h ^= (key[end + i] & 0xFFL) << (8 * i);
+            h *= m;
+        }
+        h ^= h >>> r;
+        h *= m;
+        h ^= h >>> r;
+        return h;
+    }
+}
@@ -0,0 +1,142 @@
+package cbin.io;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+  Sesión de ingesta: mantiene abiertos los archivos de salida y temporales
+  durante toda una fase, en lugar de abrir/cerrar por cada fila.
+   - Cada archivo se abre una sola vez (TRUNCATE) y se escribe con un buffer propio.
+   - El offset actual se lleva en memoria (sin Files.size por fila).
+   - endPhase() hace flush + close de todo y reporta filas/s de la fase.
+ */
+public class IngestSession implements Closeable {
+
+    /** Salida con buffer sobre un FileChannel; lleva la posición lógica en memoria. */
+    public static final class Sink extends OutputStream {
+        private final FileChannel ch;
+        private final ByteBuffer buf;
+        private long flushed = 0L;
+
+        Sink(Path p, int bufSize) throws IOException {
+            Files.createDirectories(p.toAbsolutePath().getParent());
+            this.ch = FileChannel.open(p, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            this.buf = ByteBuffer.allocate(bufSize);
+        }
+
+        /** Bytes escritos hasta ahora (incluye lo que aún está en el buffer). */
+        public long position() { return flushed + buf.position(); }
+
+        @Override public void write(int b) throws IOException {
+            if (!buf.hasRemaining()) drain();
+            buf.put((byte) b);
+        }
+
+        @Override public void write(byte[] b, int off, int len) throws IOException {
+            if (len > buf.capacity()) {
+                drain();
+                ByteBuffer src = ByteBuffer.wrap(b, off, len);
+                while (src.hasRemaining()) ch.write(src);
+                flushed += len;
+                return;
+            }
+            if (len > buf.remaining()) drain();
+            buf.put(b, off, len);
+        }
+
+        /** u32 big-endian (mismo formato que DataOutputStream.writeInt). */
+        public void writeInt(int v) throws IOException {
+            if (buf.remaining() < 4) drain();
+            buf.putInt(v);
+        }
+
+        /** u64 little-endian (formato de nodes.off / edges.off). */
+        public void writeLongLE(long v) throws IOException {
+            if (buf.remaining() < 8) drain();
+            buf.putLong(Long.reverseBytes(v));
+        }
+
+        private void drain() throws IOException {
+            buf.flip();
+            flushed += buf.remaining();
+            while (buf.hasRemaining()) ch.write(buf);
+            buf.clear();
+        }
+
+        /** Agrega el contenido completo de src (p.ej. un segmento temporal) vía transferTo. */
+        public void append(Path src) throws IOException {
+            drain();
+            try (var in = FileChannel.open(src, StandardOpenOption.READ)) {
+                long n = in.size(), p = 0;
+                while (p < n) p += in.transferTo(p, n - p, ch);
+                flushed += n;
+            }
+        }
+
+        @Override public void flush() throws IOException { drain(); }
+
+        @Override public void close() throws IOException {
+            if (!ch.isOpen()) return;
+            try { drain(); } finally { ch.close(); }
+        }
+    }
+
+    private final Map<Path, Sink> sinks = new LinkedHashMap<>();
+    private String phase;
+    private long rows;
+    private long t0;
+
+    /** Inicia una fase (solo para métricas). */
+    public void beginPhase(String name) {
+        this.phase = name;
+        this.rows = 0;
+        this.t0 = System.nanoTime();
+    }
+
+    /** Contabiliza una fila procesada en la fase actual. */
+    public void row() { rows++; }
+
+    /** Contabiliza n filas procesadas fuera de la sesión (p.ej. por un worker). */
+    public void addRows(long n) { rows += n; }
+
+    public long rows() { return rows; }
+
+    /** Devuelve el sink de p, abriéndolo (y truncándolo) la primera vez. */
+    public Sink sink(Path p) throws IOException {
+        return sink(p, 1 << 20);
+    }
+
+    public Sink sink(Path p, int bufSize) throws IOException {
+        Sink s = sinks.get(p);
+        if (s == null) {
+            s = new Sink(p, bufSize);
+            sinks.put(p, s);
+        }
+        return s;
+    }
+
+    /** Flush + close de todos los archivos abiertos en la fase; imprime filas/s. */
+    public void endPhase() throws IOException {
+        closeSinks();
+        if (phase != null) {
+            double secs = (System.nanoTime() - t0) / 1e9;
+            System.out.printf(Locale.ROOT, "Fase %s: %d filas en %.3f s (%.0f filas/s)%n",
+                    phase, rows, secs, secs > 0 ? rows / secs : 0.0);
+            phase = null;
+        }
+    }
+
+    private void closeSinks() throws IOException {
+        IOException first = null;
+        for (Sink s : sinks.values()) {
+            try { s.close(); } catch (IOException e) { if (first == null) first = e; }
+        }
+        sinks.clear();
+        if (first != null) throw first;
+    }
+
+    @Override public void close() throws IOException { closeSinks(); }
+}
@@ -0,0 +1,138 @@
+package cbin.io;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+
+/**
+  Archivo mapeado en memoria (solo lectura) de cualquier tamaño.
+   - Se mapea en segmentos de 1 GB: direcciones long, sin el límite de 2 GB de un MappedByteBuffer.
+   - Solo lecturas absolutas (get(index)): no hay posición compartida, es seguro entre hilos.
+   - Enteros en big-endian (formato de lex/ord2pos/dir); getLongLE para nodes.off/edges.off y .dir.
+   - Cursor: decodifica varints secuenciales directo de la memoria mapeada (sin alocar por valor).
+   - slice: vista de un rango [base, base+size) que comparte los mapeos (secciones de un
+     contenedor .cbin, ver PackedGraph); las posiciones son relativas al rango.
+  Un archivo inexistente se trata como vacío (size 0). No hay close: los mapeos se liberan
+  cuando el GC recolecta los buffers.
+ */
+public final class MappedFile {
+
+    private static final int SHIFT = 30;
+    private static final long SEG = 1L << SHIFT;
+    private static final long MASK = SEG - 1;
+
+    private final Path path;
+    private final long base, size;
+    private final MappedByteBuffer[] segs;
+
+    private MappedFile(Path path, long base, long size, MappedByteBuffer[] segs) {
+        this.path = path; this.base = base; this.size = size; this.segs = segs;
+    }
+
+    public static MappedFile open(Path p) throws IOException {
+        if (!Files.exists(p)) return new MappedFile(p, 0L, 0L, new MappedByteBuffer[0]);
+        try (var ch = FileChannel.open(p, StandardOpenOption.READ)) {
+            long size = ch.size();
+            int n = (int) ((size + SEG - 1) >>> SHIFT);
+            MappedByteBuffer[] segs = new MappedByteBuffer[n];
+            for (int i = 0; i < n; i++) {
+                long base = (long) i << SHIFT;
+                segs[i] = ch.map(FileChannel.MapMode.READ_ONLY, base, Math.min(SEG, size - base));
+            }
+            return new MappedFile(p, 0L, size, segs);
+        }
+    }
+
+    /** Vista de [off, off+len) de este archivo, sin volver a mapear. */
+    public MappedFile slice(long off, long len) {
+        if (off < 0 || len < 0 || off + len > size) throw new IndexOutOfBoundsException("slice " + off + "+" + len + " de " + size);
+        return new MappedFile(path, base + off, len, segs);
+    }
+
+    public Path path() { return path; }
+    public long size() { return size; }
+
+    public byte get(long pos) {
+        pos += base;
+        return segs[(int) (pos >>> SHIFT)].get((int) (pos & MASK));
+    }
+
+    /** u32 big-endian. */
+    public int getInt(long pos) {
+        long a = pos + base;
+        int i = (int) (a & MASK);
+        MappedByteBuffer s = segs[(int) (a >>> SHIFT)];
+        if (i <= s.limit() - 4) return s.getInt(i);
+        return ((get(pos) & 0xFF) << 24) | ((get(pos + 1) & 0xFF) << 16) | ((get(pos + 2) & 0xFF) << 8) | (get(pos + 3) & 0xFF);
+    }
+
+    /** u64 big-endian. */
+    public long getLong(long pos) {
+        long a = pos + base;
+        int i = (int) (a & MASK);
+        MappedByteBuffer s = segs[(int) (a >>> SHIFT)];
+        if (i <= s.limit() - 8) return s.getLong(i);
+        return ((long) getInt(pos) << 32) | (getInt(pos + 4) & 0xFFFFFFFFL);
+    }
+
+    /** u64 little-endian (nodes.off / edges.off / off de los .dir). */
+    public long getLongLE(long pos) {
+        return Long.reverseBytes(getLong(pos));
+    }
+
+    public void get(long pos, byte[] dst, int off, int len) {
+        pos += base;
+        while (len > 0) {
+            int i = (int) (pos & MASK);
+            MappedByteBuffer s = segs[(int) (pos >>> SHIFT)];
+            int n = Math.min(len, s.limit() - i);
+            s.get(i, dst, off, n);
+            pos += n; off += n; len -= n;
+        }
+    }
+
+    /** String UTF-8 de [pos, pos+len). */
+    public String utf8(long pos, int len) {
+        byte[] b = new byte[len];
+        get(pos, b, 0, len);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    /** Compara [pos, pos+len) con key[kOff, kOff+kLen) como bytes sin signo (orden de code points). */
+    public int compare(long pos, int len, byte[] key, int kOff, int kLen) {
+        int m = Math.min(len, kLen);
+        for (int i = 0; i < m; i++) {
+            int a = get(pos + i) & 0xFF, b = key[kOff + i] & 0xFF;
+            if (a != b) return Integer.compare(a, b);
+        }
+        return Integer.compare(len, kLen);
+    }
+
+    /** Lector secuencial de varints (LEB128 sin signo) desde una posición. Reutilizable con seek. */
+    public final class Cursor {
+        private long pos;
+
+        Cursor(long pos) { this.pos = pos; }
+
+        public Cursor seek(long p) { this.pos = p; return this; }
+        public long position() { return pos; }
+
+        public long varint() {
+            long result = 0;
+            int shift = 0;
+            while (true) {
+                int b = get(pos++) & 0xFF;
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return result;
+                shift += 7;
+            }
+        }
+
+        /** varint truncado a int (ids, ordinales y deltas del formato). */
+        public int varint32() { return (int) varint(); }
+    }
+
+    public Cursor cursor(long pos) { return new Cursor(pos); }
+}
@@ -0,0 +1,94 @@
+package cbin.io;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+  Layout columnar de las propiedades de nodos, además de las filas de nodes.rec (lo arma
+  cbin.core.NodeColumnsBuilder). Una columna densa por nombre de propiedad:
+    nodes.col.dir  : [propNameId:u32][count:u32] * P ordenado por propNameId (count = nodos con valor)
+    nodes.col.<id> : valueId:u32 BE * nodeCount      (id de dict.propval; 0 si no tiene valor)
+                     bitmap u64 BE * ceil(nodeCount / 64)   (bit ord = 1 si el nodo tiene valor)
+  Un valor vacío cuenta como sin valor (igual que en idx.nodesByProp). Las propiedades enteras
+  tienen además su columna tipada en nodes.num.col (ver NumericColumns).
+  Recorrer una propiedad lee solo su archivo, en orden: sin decodificar las demás de cada nodo.
+ */
+public final class NodeColumns {
+
+    static final int DIR_ENTRY = 8;
+
+    /** Visitor de (ordinal, valueId) de los nodos con valor, en orden de ordinal. */
+    @FunctionalInterface
+    public interface ValueConsumer { void accept(int ord, int valueId); }
+
+    private final GraphReader.Source src;
+    private final MappedFile dir;
+    private final int nodes;
+
+    NodeColumns(GraphReader.Source src, int nodeCount) throws IOException {
+        this.src = src;
+        this.dir = src.file("nodes.col.dir");
+        this.nodes = nodeCount;
+    }
+
+    /** Columna de la propiedad, o null si no hay (nombre sin valores o directorio anterior a las columnas). */
+    public Column column(int propNameId) {
+        long lo = 0, hi = dir.size() / DIR_ENTRY - 1;
+        while (lo <= hi) {
+            long mid = (lo + hi) >>> 1;
+            int k = dir.getInt(mid * DIR_ENTRY);
+            if (k == propNameId) {
+                try {
+                    return new Column(src.file("nodes.col." + propNameId), dir.getInt(mid * DIR_ENTRY + 4));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            if (k < propNameId) lo = mid + 1; else hi = mid - 1;
+        }
+        return null;
+    }
+
+    /** Columna de una propiedad: valueId por ordinal y bitmap de nodos con valor. */
+    public final class Column {
+        private final MappedFile f;
+        private final int count;
+        private final long bits;
+
+        private Column(MappedFile f, int count) {
+            this.f = f;
+            this.count = count;
+            this.bits = 4L * nodes;
+        }
+
+        /** Nodos con valor. */
+        public int count() { return count; }
+
+        public boolean hasValue(int ord) {
+            return (f.getLong(bits + 8L * (ord >>> 6)) & (1L << ord)) != 0;
+        }
+
+        /** valueId del nodo (dict.propval) o -1 si no tiene valor. */
+        public int valueId(int ord) {
+            return hasValue(ord) ? f.getInt(4L * ord) : -1;
+        }
+
+        /**
+          Recorre los nodos con valor en orden de ordinal: una palabra del bitmap por cada 64 nodos
+          (las vacías se saltan enteras) y los valueIds de esos nodos. Devuelve la cantidad emitida.
+         */
+        public int forEach(ValueConsumer onValue) {
+            int emitted = 0;
+            for (int w = 0, words = (nodes + 63) >>> 6; w < words; w++) {
+                long word = f.getLong(bits + 8L * w);
+                while (word != 0) {
+                    int ord = (w << 6) + Long.numberOfTrailingZeros(word);
+                    onValue.accept(ord, f.getInt(4L * ord));
+                    word &= word - 1;
+                    emitted++;
+                }
+            }
+            return emitted;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package cbin.io;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+  Propiedades numéricas de nodos (las arma cbin.core.NumericColumnsBuilder en materializeNodesRec):
+  un nombre es numérico si todos sus valores no vacíos son enteros decimales que entran en un long.
+  nodes.rec sigue guardando el string; esto se agrega al lado.
+    nodes.num.dir : [propNameId:u32][count:u32][colOff:u64 LE][rngOff:u64 LE][min:i64][max:i64] * P
+                    ordenado por propNameId
+    nodes.num.col : por propiedad, i64 BE * nodeCount (valor por ordinal; NULL = sin valor)
+    nodes.num.rng : por propiedad, [value:i64][ord:u32] * count ordenado por (value, ord)
+  Un rango [lo, hi] son dos binary search sobre el .rng y un recorrido secuencial entre ellas.
+ */
+public final class NumericColumns {
+
+    /** Valor de la columna para nodos sin la propiedad (o con valor vacío). */
+    public static final long NULL = Long.MIN_VALUE;
+    static final int DIR_ENTRY = 40, RNG_ENTRY = 12;
+
+    private final MappedFile dir, col, rng;
+
+    NumericColumns(GraphReader.Source src) throws IOException {
+        this.dir = src.file("nodes.num.dir");
+        this.col = src.file("nodes.num.col");
+        this.rng = src.file("nodes.num.rng");
+    }
+
+    /** Columna de la propiedad, o null si no es numérica (o el directorio es anterior a las columnas). */
+    public Column column(int propNameId) {
+        long lo = 0, hi = dir.size() / DIR_ENTRY - 1;
+        while (lo <= hi) {
+            long mid = (lo + hi) >>> 1;
+            int k = dir.getInt(mid * DIR_ENTRY);
+            if (k == propNameId) return new Column(mid * DIR_ENTRY);
+            if (Integer.compareUnsigned(k, propNameId) < 0) lo = mid + 1; else hi = mid - 1;
+        }
+        return null;
+    }
+
+    /** Una propiedad numérica: valores por ordinal y rango ordenado por valor. */
+    public final class Column {
+        private final int count;
+        private final long colOff, rngOff, min, max;
+
+        private Column(long e) {
+            this.count = dir.getInt(e + 4);
+            this.colOff = dir.getLongLE(e + 8);
+            this.rngOff = dir.getLongLE(e + 16);
+            this.min = dir.getLong(e + 24);
+            this.max = dir.getLong(e + 32);
+        }
+
+        /** Nodos con valor. */
+        public int count() { return count; }
+        public long min() { return min; }
+        public long max() { return max; }
+
+        /** Valor del nodo, o NULL. */
+        public long get(int ord) { return col.getLong(colOff + 8L * ord); }
+
+        /** Cantidad de nodos con lo <= valor <= hi (dos binary search, sin recorrer). */
+        public int countInRange(long lo, long hi) {
+            if (lo > hi) return 0;
+            return bound(hi, true) - bound(lo, false);
+        }
+
+        /** Ordinales con lo <= valor <= hi, en orden de (valor, ordinal). Devuelve la cantidad emitida. */
+        public int forEachInRange(long lo, long hi, IntConsumer onOrdinal) {
+            if (lo > hi) return 0;
+            int from = bound(lo, false), to = bound(hi, true);
+            for (int i = from; i < to; i++) onOrdinal.accept(rng.getInt(rngOff + (long) i * RNG_ENTRY + 8));
+            return to - from;
+        }
+
+        /** Los mismos ordinales como cursor creciente (para PostingJoin). */
+        public GraphReader.Postings cursorInRange(long lo, long hi) {
+            int[] ords = new int[countInRange(lo, hi)];
+            int[] n = {0};
+            forEachInRange(lo, hi, o -> ords[n[0]++] = o);
+            Arrays.sort(ords);
+            Bitmap.Builder b = new Bitmap.Builder();
+            for (int o : ords) b.add(o);
+            return b.build().cursor();
+        }
+
+        /** Primera entrada con valor >= v (after: > v). */
+        private int bound(long v, boolean after) {
+            int lo = 0, hi = count;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                long x = rng.getLong(rngOff + (long) mid * RNG_ENTRY);
+                if (x < v || (after && x == v)) lo = mid + 1; else hi = mid;
+            }
+            return lo;
+        }
+    }
+}
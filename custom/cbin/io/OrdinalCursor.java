@@ -0,0 +1,23 @@
+package cbin.io;
+
+import java.util.PrimitiveIterator;
+
+/**
+  Secuencia creciente y sin repetidos de ordinales, consumible en orden y con salto hacia adelante.
+  La implementan las posting lists (GraphReader.Postings) y los joins de PostingJoin, así que
+  los operadores se pueden anidar.
+ */
+public interface OrdinalCursor extends PrimitiveIterator.OfInt {
+
+    /** Valor de advance cuando la secuencia se agotó (mayor que cualquier ordinal). */
+    int NO_MORE = Integer.MAX_VALUE;
+
+    /**
+      Consume y devuelve el primer valor >= target (NO_MORE si no hay). Con target menor o igual
+      al último devuelto equivale a nextInt.
+     */
+    int advance(int target);
+
+    /** Cota superior de los valores que faltan (para ordenar los operandos de un join). */
+    long cost();
+}
@@ -0,0 +1,102 @@
+package cbin.io;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32C;
+
+/**
+  Contenedor de un solo archivo (.cbin) con todos los archivos de un outDir como secciones
+  (lo arma cbin.core.GraphPacker). Se abre con un solo open + mmap y cada sección es un
+  MappedFile.slice del mismo mapeo: GraphReader lee igual que sobre el directorio.
+    header   : [magic:8][version:u32][nodes:u32][edges:u32][sections:u32]
+    manifest : por sección [nameLen:u16][name UTF-8][off:u64 LE][len:u64 LE][crc32c:u32]
+               (orden por nombre; off absoluto en el archivo)
+    secciones: el contenido de cada archivo, empezando en múltiplos de ALIGN
+  El header + manifest ocupan el primer bloque (o los que hagan falta). Los checksums no se
+  verifican al abrir (habría que leer todo el archivo): ver verify().
+ */
+public final class PackedGraph {
+
+    public static final byte[] MAGIC = {'C', 'B', 'P', 'K', 0, 0, 0, 1};
+    public static final int VERSION = 1;
+    public static final int ALIGN = 4096;
+
+    /** Entrada del manifest. */
+    public static final class Section {
+        public final String name;
+        public final long offset, length;
+        public final int crc;
+        public Section(String name, long offset, long length, int crc) { this.name = name; this.offset = offset; this.length = length; this.crc = crc; }
+    }
+
+    private final MappedFile f;
+    private final int nodes, edges;
+    private final Map<String, Section> sections = new LinkedHashMap<>();
+
+    private PackedGraph(MappedFile f) throws IOException {
+        this.f = f;
+        int version = f.getInt(8);
+        if (version != VERSION) throw new IOException(f.path() + ": versión de contenedor " + version + " no soportada");
+        this.nodes = f.getInt(12);
+        this.edges = f.getInt(16);
+        int n = f.getInt(20);
+        long pos = 24;
+        for (int i = 0; i < n; i++) {
+            int len = ((f.get(pos) & 0xFF) << 8) | (f.get(pos + 1) & 0xFF);
+            String name = f.utf8(pos + 2, len);
+            pos += 2 + len;
+            Section s = new Section(name, f.getLongLE(pos), f.getLongLE(pos + 8), f.getInt(pos + 16));
+            if (s.offset < 0 || s.length < 0 || s.offset + s.length > f.size()) {
+                throw new IOException(f.path() + ": sección " + name + " fuera del archivo");
+            }
+            sections.put(name, s);
+            pos += 20;
+        }
+    }
+
+    public static PackedGraph open(Path p) throws IOException {
+        MappedFile f = MappedFile.open(p);
+        if (f.size() < 24) throw new IOException(p + ": no es un contenedor cbin");
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (f.get(i) != MAGIC[i]) throw new IOException(p + ": no es un contenedor cbin");
+        }
+        return new PackedGraph(f);
+    }
+
+    public Path path() { return f.path(); }
+    public int nodeCount() { return nodes; }
+    public int edgeCount() { return edges; }
+    public Collection<Section> sections() { return sections.values(); }
+
+    /** La sección como MappedFile (vacío si no está, igual que un archivo inexistente). */
+    public MappedFile file(String name) {
+        Section s = sections.get(name);
+        return s == null ? f.slice(0, 0) : f.slice(s.offset, s.length);
+    }
+
+    /** Recalcula el CRC32C de cada sección; IOException con la primera que no coincide. */
+    public void verify() throws IOException {
+        byte[] buf = new byte[1 << 20];
+        for (Section s : sections.values()) {
+            CRC32C crc = new CRC32C();
+            for (long p = 0; p < s.length; ) {
+                int n = (int) Math.min(buf.length, s.length - p);
+                f.get(s.offset + p, buf, 0, n);
+                crc.update(buf, 0, n);
+                p += n;
+            }
+            if ((int) crc.getValue() != s.crc) throw new IOException(f.path() + ": checksum de " + s.name + " no coincide");
+        }
+    }
+
+    /** Largo del header + manifest para estos nombres, sin redondear. */
+    public static long headerSize(Collection<String> names) {
+        long size = 24;
+        for (String n : names) size += 2 + n.getBytes(StandardCharsets.UTF_8).length + 20;
+        return size;
+    }
+
+    public static long align(long pos) { return (pos + ALIGN - 1) & -(long) ALIGN; }
+}
@@ -0,0 +1,139 @@
+package cbin.io;
+
+import com.pgdf.PgdfTokenizer;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+  División de un archivo PGDF en rangos de bytes alineados a '\n' para parseo en paralelo.
+   - Cada Chunk lleva el header (@...) vigente al inicio del rango: se busca en paralelo
+     el último header de cada chunk y se propaga en orden.
+   - forEachRow recorre las filas de un chunk (mmap del rango) con un PgdfTokenizer que
+     arranca con el header vigente: misma semántica que PgdfReader.scan.
+ */
+public final class PgdfChunks {
+
+    public static final class Chunk {
+        public final int index;
+        public final long start, end;      // [start, end)
+        PgdfTokenizer.Header header;        // header vigente al inicio (puede ser null)
+        PgdfTokenizer.Header lastHeader;    // último header dentro del rango (o null)
+        Chunk(int index, long start, long end) { this.index = index; this.start = start; this.end = end; }
+        public PgdfTokenizer.Header header() { return header; }
+    }
+
+    private PgdfChunks() {}
+
+    public static long defaultChunkBytes() {
+        return Long.getLong("cbin.chunkMB", 64L) << 20;
+    }
+
+    /** Divide el archivo en chunks de ~chunkBytes y resuelve el header de cada uno usando pool. */
+    public static List<Chunk> split(Path file, long chunkBytes, ExecutorService pool) throws IOException {
+        chunkBytes = Math.max(1 << 16, Math.min(chunkBytes, 1L << 30));
+        List<Chunk> chunks = new ArrayList<>();
+        try (var ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            long start = 0L;
+            var one = java.nio.ByteBuffer.allocate(1 << 16);
+            while (start < size) {
+                long end = Math.min(size, start + chunkBytes);
+                // avanzar hasta después del siguiente '\n'
+                while (end < size) {
+                    one.clear();
+                    int r = ch.read(one, end);
+                    if (r <= 0) { end = size; break; }
+                    int nl = -1;
+                    for (int i = 0; i < r; i++) if (one.get(i) == '\n') { nl = i; break; }
+                    if (nl >= 0) { end += nl + 1; break; }
+                    end += r;
+                }
+                chunks.add(new Chunk(chunks.size(), start, Math.min(end, size)));
+                start = end;
+            }
+        }
+
+        // último header de cada chunk (en paralelo) y propagación en orden
+        List<Future<?>> fs = new ArrayList<>();
+        for (Chunk c : chunks) {
+            fs.add(pool.submit(() -> {
+                scanHeaders(file, c, line -> c.lastHeader = PgdfTokenizer.Header.parse(line));
+                return null;
+            }));
+        }
+        await(fs);
+        PgdfTokenizer.Header cur = null;
+        for (Chunk c : chunks) {
+            c.header = cur;
+            if (c.lastHeader != null) cur = c.lastHeader;
+            c.lastHeader = null;
+        }
+        return chunks;
+    }
+
+    /** Recorre las filas de datos del chunk con su header vigente (tokenizer flyweight, ver PgdfTokenizer). */
+    public static void forEachRow(Path file, Chunk c, Consumer<PgdfTokenizer> onRow) throws IOException {
+        PgdfTokenizer t = PgdfTokenizer.of(map(file, c));
+        t.header(c.header);
+        while (t.next()) onRow.accept(t);
+    }
+
+    private static MappedByteBuffer map(Path file, Chunk c) throws IOException {
+        try (var ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            return ch.map(FileChannel.MapMode.READ_ONLY, c.start, c.end - c.start);
+        }
+    }
+
+    /** Recorre solo las líneas del rango que empiezan con '@' (decodificadas). */
+    private static void scanHeaders(Path file, Chunk c, Consumer<String> onLine) throws IOException {
+        MappedByteBuffer mb = map(file, c);
+        int n = mb.limit();
+        byte[] buf = new byte[256];
+        int len = 0;
+        boolean skip = false;       // línea actual no es header
+        for (int i = 0; i < n; i++) {
+            byte b = mb.get(i);
+            if (b == '\n') {
+                if (!skip && len > 0) onLine.accept(decode(buf, len));
+                len = 0;
+                skip = false;
+            } else if (skip) {
+                // nada
+            } else if (len == 0 && b != '@') {
+                skip = true;
+            } else {
+                if (len == buf.length) buf = Arrays.copyOf(buf, buf.length * 2);
+                buf[len++] = b;
+            }
+        }
+        if (len > 0 && !skip) onLine.accept(decode(buf, len));
+    }
+
+    private static String decode(byte[] buf, int len) {
+        if (len > 0 && buf[len - 1] == '\r') len--;
+        return new String(buf, 0, len, StandardCharsets.UTF_8);
+    }
+
+    public static void await(List<? extends Future<?>> fs) throws IOException {
+        for (Future<?> f : fs) {
+            try {
+                f.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrumpido", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException io) throw io;
+                if (cause instanceof RuntimeException re) throw re;
+                throw new IOException(cause);
+            }
+        }
+    }
+}
@@ -1,8 +1,9 @@
 package cbin.io;
 
-import java.io.BufferedReader;
+import com.pgdf.PgdfTokenizer;
+
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
@@ -31,61 +32,47 @@ public class PgdfReader {
 
     // ===== Stream nodes =====
     public static void readNodes(Path nodesPgdf, java.util.function.Consumer<NodeRow> onRow) throws IOException {
-        try (BufferedReader br = Files.newBufferedReader(nodesPgdf, StandardCharsets.UTF_8)) {
-            String line; String[] header = null;
-            while ((line = br.readLine()) != null) {
-                if (line.isBlank()) continue;
-                if (line.startsWith("@")) {
-                    header = Arrays.stream(line.split("\\|")).map(String::trim).toArray(String[]::new);
-                    continue;
-                }
-                if (header == null) continue;
-
-                String[] cols = line.split("\\|", -1);
-                Map<String,String> row = new LinkedHashMap<>();
-                for (int i=0;i<header.length && i<cols.length;i++) row.put(header[i], cols[i]);
-
-                String nodeId = row.getOrDefault("@id","").trim();
-                String labelS = row.getOrDefault("@label","").trim();
-                if (nodeId.isEmpty() || labelS.isEmpty()) continue;
-
-                Map<String,String> props = new LinkedHashMap<>();
-                for (var e : row.entrySet()){
-                    String k=e.getKey();
-                    if ("@id".equals(k) || "@label".equals(k)) continue;
-                    props.put(k, e.getValue()==null? "" : e.getValue());
-                }
-                onRow.accept(new NodeRow(nodeId, labelS, props));
-            }
-        }
+        scan(nodesPgdf, t -> {
+            NodeRow row = toNodeRow(t);
+            if (row != null) onRow.accept(row);
+        });
     }
 
     // ===== Stream edges =====
     public static void readEdges(Path edgesPgdf, java.util.function.Consumer<EdgeRow> onRow) throws IOException {
-        try (BufferedReader br = Files.newBufferedReader(edgesPgdf, StandardCharsets.UTF_8)) {
-            String line; String[] header = null;
-            while ((line = br.readLine()) != null) {
-                if (line.isBlank()) continue;
-                if (line.startsWith("@")) {
-                    header = Arrays.stream(line.split("\\|")).map(String::trim).toArray(String[]::new);
-                    continue;
-                }
-                if (header == null) continue;
-
-                String[] cols = line.split("\\|", -1);
-                Map<String,String> row = new HashMap<>();
-                for (int i=0;i<header.length && i<cols.length;i++) row.put(header[i], cols[i]);
+        scan(edgesPgdf, t -> {
+            EdgeRow row = toEdgeRow(t);
+            if (row != null) onRow.accept(row);
+        });
+    }
 
-                String edgeId = row.getOrDefault("@id","").trim();
-                String labelS = row.getOrDefault("@label","").trim();
-                String dir    = row.getOrDefault("@dir","T").trim();
-                String srcId  = row.getOrDefault("@out","").trim();
-                String dstId  = row.getOrDefault("@in","").trim();
+    // ===== Stream flyweight (sin objetos por fila) =====
 
-                if (labelS.isEmpty() || srcId.isEmpty() || dstId.isEmpty()) continue;
+    /** Recorre las filas de datos con el tokenizer posicionado en cada una (vista válida solo durante el callback). */
+    public static void scan(Path pgdf, java.util.function.Consumer<PgdfTokenizer> onRow) throws IOException {
+        try (InputStream in = Files.newInputStream(pgdf)) {
+            PgdfTokenizer t = PgdfTokenizer.of(in);
+            while (t.next()) onRow.accept(t);
+        }
+    }
 
-                onRow.accept(new EdgeRow(edgeId, labelS, dir, srcId, dstId));
-            }
+    /** NodeRow a partir de la fila actual del tokenizer (o null si no tiene @id/@label). */
+    public static NodeRow toNodeRow(PgdfTokenizer t) {
+        PgdfTokenizer.Header h = t.header();
+        if (t.trimLen(h.id) == 0 || t.trimLen(h.label) == 0) return null;
+        Map<String,String> props = new LinkedHashMap<>();
+        for (int c = 0, n = t.columns(); c < n; c++) {
+            if (h.isReserved(c)) continue;
+            props.put(h.names[c], t.str(c));
         }
+        return new NodeRow(t.trimmed(h.id), t.intern(h.label), props);
+    }
+
+    /** EdgeRow a partir de la fila actual del tokenizer (o null si le falta label/@out/@in). */
+    public static EdgeRow toEdgeRow(PgdfTokenizer t) {
+        PgdfTokenizer.Header h = t.header();
+        if (t.trimLen(h.label) == 0 || t.trimLen(h.out) == 0 || t.trimLen(h.in) == 0) return null;
+        String dir = t.has(h.dir) ? t.intern(h.dir) : "T";
+        return new EdgeRow(t.trimmed(h.id), t.intern(h.label), dir, t.trimmed(h.out), t.trimmed(h.in));
     }
 }
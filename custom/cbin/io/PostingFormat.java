@@ -0,0 +1,116 @@
+package cbin.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+  Formato de posting lists en bloques (idx.*.pl).
+   - El archivo empieza con MAGIC (8 bytes que un .pl anterior, solo varints u32, no puede tener).
+     Sin MAGIC el .pl es del formato anterior: cada lista es un único stream delta + varint.
+   - Listas con count < BLOCK: stream delta + varint (igual que antes; la mayoría en nodesByProp).
+   - Listas con count >= BLOCK: primero los datos y, al final, la cabecera a la que apunta el off
+     del .dir, que empieza con un byte kind:
+     KIND_BLOCKS: bloques de BLOCK ordinales escritos en orden;
+        cabecera [kind][skip: nblocks * (first:u32 BE, blockOff:u64 LE)], nblocks = ceil(count / BLOCK).
+        Cada bloque: [bits:u8][len-1 valores (delta - 1) empaquetados con `bits` bits, LSB primero];
+        el primer valor del bloque está en la tabla de skip.
+     KIND_BITMAP: containers de Bitmap (estilo Roaring), para listas densas: la mayoría de sus
+        valores cae en chunks de 2^16 con densidad > -Dcbin.index.bitmapDensity (1/16 por defecto:
+        el punto en que Roaring pasa de container array a bitmap; >= 1 lo desactiva) y cuyos
+        containers no ocupan más que los bloques + tabla de skip (deltas chicos empaquetan en
+        pocos bits; un chunk consecutivo, a 0 bits, es siempre más chico en bloques);
+        cabecera [kind][n:u32 BE][n * (key:u16 BE, card-1:u16 BE, off:u64 LE)].
+  Con la tabla de skip, advance(target) es una binary search sobre los first + decodificar
+  un solo bloque, y offset/limit saltan bloques enteros.
+ */
+public final class PostingFormat {
+
+    public static final int BLOCK = 128;
+    public static final int KIND_BLOCKS = 1;
+    public static final int KIND_BITMAP = 2;
+    public static final int SKIP_ENTRY = 12;
+    public static final int BITMAP_ENTRY = 12;
+    static final byte[] MAGIC = {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 'P', 'L', '2'};
+
+    private static final VarHandle LE64 = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private PostingFormat() {}
+
+    /** true si el .pl mapeado empieza con MAGIC (listas largas con kind: bloques o bitmap). */
+    public static boolean isTagged(MappedFile pl) {
+        if (pl.size() < MAGIC.length) return false;
+        for (int i = 0; i < MAGIC.length; i++) if (pl.get(i) != MAGIC[i]) return false;
+        return true;
+    }
+
+    public static int blocks(int count) { return (count + BLOCK - 1) / BLOCK; }
+
+    /** Valores por chunk de 2^16 a partir de los cuales el chunk cuenta como denso (bitmap). */
+    static int denseChunkCard() {
+        double d = Double.parseDouble(System.getProperty("cbin.index.bitmapDensity", "0.0625"));
+        return (int) Math.min(1 << 16, d * (1 << 16));
+    }
+
+    /** Bits necesarios para representar v (sin signo); 0 para v = 0. */
+    static int bits(int v) { return 32 - Integer.numberOfLeadingZeros(v); }
+
+    /**
+      Escribe un bloque de vals[0..n) (crecientes, sin repetidos): [bits][deltas - 1 empaquetados].
+      Devuelve los bytes escritos.
+     */
+    static int writeBlock(OutputStream out, int[] vals, int n) throws IOException {
+        int max = 0;
+        for (int i = 1; i < n; i++) max |= vals[i] - vals[i - 1] - 1;
+        int b = bits(max);
+        out.write(b);
+        long acc = 0;
+        int filled = 0, written = 1;
+        for (int i = 1; i < n && b > 0; i++) {
+            acc |= ((vals[i] - vals[i - 1] - 1) & 0xFFFFFFFFL) << filled;
+            filled += b;
+            while (filled >= 8) {
+                out.write((int) acc);
+                acc >>>= 8;
+                filled -= 8;
+                written++;
+            }
+        }
+        if (filled > 0) { out.write((int) acc); written++; }
+        return written;
+    }
+
+    /** Tamaño de scratch para readBlock: un bloque completo a 32 bits + relleno para leer de a long. */
+    static final int SCRATCH = BLOCK * 4 + 8;
+
+    static int packedBytes(int n, int bits) { return ((n - 1) * bits + 7) >>> 3; }
+
+    /**
+      Decodifica un bloque de n valores en dst[0..n) dado su primer valor. Copia los bytes
+      empaquetados del mapeo a scratch de una vez y los desempaqueta leyendo de a 64 bits.
+     */
+    static void readBlock(MappedFile pl, long pos, int first, int n, int[] dst, byte[] scratch) {
+        int b = pl.get(pos) & 0xFF;
+        if (b > 0) pl.get(pos + 1, scratch, 0, packedBytes(n, b));
+        unpack(scratch, b, first, n, dst);
+    }
+
+    /** Desempaqueta n-1 deltas de `bits` bits desde packed[0..] (con SCRATCH de capacidad). */
+    static void unpack(byte[] packed, int bits, int first, int n, int[] dst) {
+        dst[0] = first;
+        if (bits == 0) {
+            for (int i = 1; i < n; i++) dst[i] = first + i;
+            return;
+        }
+        long mask = (1L << bits) - 1;
+        int v = first;
+        long bit = 0;
+        for (int i = 1; i < n; i++, bit += bits) {
+            long w = (long) LE64.get(packed, (int) (bit >>> 3)) >>> (bit & 7);
+            v += 1 + (int) (w & mask);
+            dst[i] = v;
+        }
+    }
+}
@@ -0,0 +1,374 @@
+package cbin.io;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+  Construcción de índices de posting lists con sort/merge externo (memoria acotada).
+  Entrada: temporal con registros de ancho fijo [key:u32 * keyInts][val:u32] (big-endian).
+   - keyInts = 1 : (labelId, ordinal)              -> idx.*ByLabel
+   - keyInts = 2 : (propNameId, propValId, ordinal) -> idx.nodesByProp
+  Se ordenan runs de hasta memBudget bytes por (key, val), se vuelcan a disco y
+  se hace merge k-way escribiendo directo las posting lists (sin repetidos; delta + varint,
+  bloques con tabla de skip o, si la lista es densa, bitmap; ver PostingFormat) y las entradas del .dir: [key:u32 * keyInts, off:u64 LE, count:u32].
+  Presupuesto por defecto: -Dcbin.index.memMB (64 MB).
+  keyMap(map) remapea la última int de la key al leer el temporal: p.ej. ids provisionales de label
+  de la ingesta de aristas en una pasada -> ids definitivos del diccionario.
+  sort(tmp, sink) expone solo el sort/merge (pares ordenados, con repetidos) para otros
+  formatos de salida (p.ej. AdjacencyBuilder).
+ */
+public final class PostingIndexBuilder {
+
+    private static final int REC_MEM = 12;          // long key + int val en los arrays del run
+
+    private final int keyInts;
+    private final int capacity;
+    private int[] keyMap;
+
+    public PostingIndexBuilder(int keyInts) { this(keyInts, defaultBudget()); }
+
+    public PostingIndexBuilder(int keyInts, long memBudgetBytes) {
+        if (keyInts != 1 && keyInts != 2) throw new IllegalArgumentException("keyInts debe ser 1 o 2");
+        this.keyInts = keyInts;
+        this.capacity = (int) Math.max(1024, Math.min(Integer.MAX_VALUE - 8, memBudgetBytes / REC_MEM));
+    }
+
+    /** Consumidor de pares (key, val) en orden creciente. */
+    @FunctionalInterface
+    public interface PairSink { void add(long key, int val) throws IOException; }
+
+    /** Remapeo de la última int de la key (x -> map[x]) aplicado antes de ordenar. */
+    public PostingIndexBuilder keyMap(int[] map) {
+        this.keyMap = map;
+        return this;
+    }
+
+    public static long defaultBudget() {
+        return Long.getLong("cbin.index.memMB", 64L) << 20;
+    }
+
+    public void build(Path tmpRecords, Path outPl, Path outDir) throws IOException {
+        try (var w = new Writer(outPl, outDir)) {
+            sort(tmpRecords, w::add);
+        }
+    }
+
+    /** Ordena los registros del temporal por (key, val) y los entrega en orden a out (sin dedupe). */
+    public void sort(Path tmpRecords, PairSink out) throws IOException {
+        List<Path> runs = new ArrayList<>();
+        long[] keys = null;
+        int[] vals = null;
+        int n = 0;
+        try {
+            if (Files.exists(tmpRecords)) {
+                long total = Files.size(tmpRecords) / (4L * (keyInts + 1));
+                int cap = (int) Math.min(capacity, Math.max(1, total));
+                keys = new long[cap];
+                vals = new int[cap];
+                try (var is = new DataInputStream(new BufferedInputStream(Files.newInputStream(tmpRecords), 1 << 20))) {
+                    for (long r = 0; r < total; r++) {
+                        long key = keyInts == 1 ? is.readInt() : (((long) is.readInt()) << 32) | (is.readInt() & 0xFFFFFFFFL);
+                        if (keyMap != null) key = (key & 0xFFFFFFFF00000000L) | (keyMap[(int) key] & 0xFFFFFFFFL);
+                        int val = is.readInt();
+                        if (n == cap) {
+                            sort(keys, vals, 0, n - 1);
+                            runs.add(spill(keys, vals, n));
+                            n = 0;
+                        }
+                        keys[n] = key;
+                        vals[n] = val;
+                        n++;
+                    }
+                }
+                sort(keys, vals, 0, n - 1);
+            }
+
+            if (runs.isEmpty()) {
+                for (int i = 0; i < n; i++) out.add(keys[i], vals[i]);
+            } else {
+                if (n > 0) runs.add(spill(keys, vals, n));
+                keys = null; vals = null;
+                merge(runs, out);
+            }
+        } finally {
+            for (Path r : runs) Files.deleteIfExists(r);
+        }
+    }
+
+    // ---- salida: agrupa por key, dedupe de val; varint o bloques según el largo (ver PostingFormat) ----
+
+    private final class Writer implements Closeable {
+        final FileChannel ch;
+        final BufferedOutputStream pl;
+        final DataOutputStream dir;
+        final int denseChunk = PostingFormat.denseChunkCard();
+        final int[] block = new int[PostingFormat.BLOCK];
+        int pending;                    // valores en block aún no escritos
+        int[] skipFirst = new int[16];
+        long[] skipOff = new long[16];
+        int blocks;                     // bloques ya escritos de la key actual (0 = lista corta por ahora)
+        boolean open = false;
+        long curKey;
+        int prev, count;
+        int chunk, chunkCard, denseCount;   // chunk de 2^16 en curso y valores en chunks densos
+        int containers;                     // containers que tendría el Bitmap de la key
+        long bitmapBytes;                   // y sus bytes (sin la cabecera)
+        long offset, before;
+
+        Writer(Path outPl, Path outDir) throws IOException {
+            ch = FileChannel.open(outPl, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE, StandardOpenOption.READ);
+            pl = new BufferedOutputStream(Channels.newOutputStream(ch), 1 << 20);
+            dir = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(outDir, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), 1 << 20));
+            pl.write(PostingFormat.MAGIC);
+            offset = PostingFormat.MAGIC.length;
+        }
+
+        void add(long key, int val) throws IOException {
+            if (open && key == curKey) {
+                if (val == prev) return;    // repetido
+            } else {
+                endKey();
+                open = true;
+                curKey = key;
+                count = 0;
+                blocks = 0;
+                chunk = val >>> 16;
+                chunkCard = denseCount = containers = 0;
+                bitmapBytes = 0;
+            }
+            if (val >>> 16 != chunk) {
+                closeChunk();
+                chunk = val >>> 16;
+            }
+            chunkCard++;
+            block[pending++] = val;
+            prev = val;
+            count++;
+            if (pending == PostingFormat.BLOCK) flushBlock();
+        }
+
+        private void closeChunk() {
+            if (chunkCard > denseChunk) denseCount += chunkCard;
+            containers++;
+            bitmapBytes += chunkCard <= Bitmap.ARRAY_MAX ? 2L * chunkCard : 8L * Bitmap.WORDS;
+            chunkCard = 0;
+        }
+
+        private void flushBlock() throws IOException {
+            if (blocks == skipFirst.length) {
+                skipFirst = Arrays.copyOf(skipFirst, blocks * 2);
+                skipOff = Arrays.copyOf(skipOff, blocks * 2);
+            }
+            skipFirst[blocks] = block[0];
+            skipOff[blocks] = offset;
+            blocks++;
+            offset += PostingFormat.writeBlock(pl, block, pending);
+            pending = 0;
+        }
+
+        private void endKey() throws IOException {
+            if (!open) return;
+            if (blocks == 0) {
+                // lista corta: delta + varint
+                before = offset;
+                for (int i = 0; i < pending; i++) {
+                    int d = i == 0 ? block[0] : block[i] - block[i - 1];
+                    BinaryGraphFiles.VarInt.writeUnsigned(pl, Integer.toUnsignedLong(d));
+                    offset += BinaryGraphFiles.varintSize(d);
+                }
+                pending = 0;
+            } else {
+                if (pending > 0) flushBlock();
+                closeChunk();
+                // bitmap solo si la lista es densa y no ocupa más que los bloques + tabla de skip
+                long blockBytes = offset - skipOff[0] + 1 + (long) blocks * PostingFormat.SKIP_ENTRY;
+                long bitmapTotal = bitmapBytes + 5 + (long) containers * PostingFormat.BITMAP_ENTRY;
+                if (denseCount >= count - denseCount && bitmapTotal <= blockBytes) {
+                    writeBitmap();
+                } else {
+                    writeSkipTable();
+                }
+            }
+            if (keyInts == 1) {
+                dir.writeInt((int) curKey);
+            } else {
+                dir.writeInt((int) (curKey >>> 32));
+                dir.writeInt((int) curKey);
+            }
+            dir.writeLong(Long.reverseBytes(before));
+            dir.writeInt(count);
+            open = false;
+        }
+
+        private void writeSkipTable() throws IOException {
+            before = offset;
+            pl.write(PostingFormat.KIND_BLOCKS);
+            byte[] e = new byte[PostingFormat.SKIP_ENTRY];
+            for (int b = 0; b < blocks; b++) {
+                int f = skipFirst[b];
+                long o = skipOff[b];
+                e[0] = (byte) (f >>> 24); e[1] = (byte) (f >>> 16); e[2] = (byte) (f >>> 8); e[3] = (byte) f;
+                for (int i = 0; i < 8; i++) e[4 + i] = (byte) (o >>> (8 * i));
+                pl.write(e);
+            }
+            offset += 1 + (long) blocks * PostingFormat.SKIP_ENTRY;
+        }
+
+        /**
+          Lista densa: relee sus bloques recién escritos, los descarta (truncate al inicio de la
+          lista) y escribe en su lugar los containers del Bitmap y su cabecera.
+         */
+        private void writeBitmap() throws IOException {
+            pl.flush();
+            long start = skipOff[0];
+            Bitmap.Builder bb = new Bitmap.Builder();
+            byte[] scratch = new byte[PostingFormat.SCRATCH];
+            int[] vals = new int[PostingFormat.BLOCK];
+            ByteBuffer bits = ByteBuffer.allocate(1);
+            for (int b = 0; b < blocks; b++) {
+                long end = b + 1 < blocks ? skipOff[b + 1] : offset;
+                int n = Math.min(PostingFormat.BLOCK, count - b * PostingFormat.BLOCK);
+                readFully(bits.clear(), skipOff[b]);
+                ByteBuffer packed = ByteBuffer.wrap(scratch, 0, (int) (end - skipOff[b] - 1));
+                readFully(packed, skipOff[b] + 1);
+                PostingFormat.unpack(scratch, bits.get(0) & 0xFF, skipFirst[b], n, vals);
+                for (int i = 0; i < n; i++) bb.add(vals[i]);
+            }
+            Bitmap bm = bb.build();
+            ch.truncate(start);
+            ch.position(start);
+            offset = start;
+            int n = bm.containers();
+            long[] off = new long[n];
+            for (int i = 0; i < n; i++) {
+                off[i] = offset;
+                offset += bm.writeContainer(i, pl);
+            }
+            before = offset;
+            var h = new DataOutputStream(pl);
+            h.writeByte(PostingFormat.KIND_BITMAP);
+            h.writeInt(n);
+            for (int i = 0; i < n; i++) {
+                h.writeShort(bm.key(i));
+                h.writeShort(bm.containerCard(i) - 1);
+                h.writeLong(Long.reverseBytes(off[i]));
+            }
+            h.flush();
+            offset += 5 + (long) n * PostingFormat.BITMAP_ENTRY;
+        }
+
+        private void readFully(ByteBuffer bb, long pos) throws IOException {
+            while (bb.hasRemaining()) {
+                if (ch.read(bb, pos + bb.position()) < 0) throw new EOFException("idx .pl truncado");
+            }
+        }
+
+        @Override public void close() throws IOException {
+            try { endKey(); } finally {
+                try { pl.close(); } finally { dir.close(); }
+            }
+        }
+    }
+
+    // ---- runs ----
+
+    private static Path spill(long[] keys, int[] vals, int n) throws IOException {
+        Path run = Files.createTempFile("graphbin_", "_idx.run");
+        try (var os = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), 1 << 20))) {
+            for (int i = 0; i < n; i++) {
+                os.writeLong(keys[i]);
+                os.writeInt(vals[i]);
+            }
+        }
+        return run;
+    }
+
+    private static final class RunCursor implements Closeable {
+        final DataInputStream in;
+        long key;
+        int val;
+        boolean valid;
+        RunCursor(Path p) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(Files.newInputStream(p), 1 << 16));
+            advance();
+        }
+        void advance() throws IOException {
+            try {
+                key = in.readLong();
+                val = in.readInt();
+                valid = true;
+            } catch (EOFException eof) {
+                valid = false;
+            }
+        }
+        @Override public void close() throws IOException { in.close(); }
+    }
+
+    private static void merge(List<Path> runs, PairSink w) throws IOException {
+        List<RunCursor> cursors = new ArrayList<>(runs.size());
+        try {
+            PriorityQueue<RunCursor> pq = new PriorityQueue<>(runs.size(), (a, b) -> compare(a.key, a.val, b.key, b.val));
+            for (Path r : runs) {
+                RunCursor c = new RunCursor(r);
+                cursors.add(c);
+                if (c.valid) pq.add(c);
+            }
+            while (!pq.isEmpty()) {
+                RunCursor c = pq.poll();
+                w.add(c.key, c.val);
+                c.advance();
+                if (c.valid) pq.add(c);
+            }
+        } finally {
+            for (RunCursor c : cursors) c.close();
+        }
+    }
+
+    // ---- sort in-place de arrays paralelos (key, val) ----
+
+    private static int compare(long ka, int va, long kb, int vb) {
+        int c = Long.compare(ka, kb);
+        return c != 0 ? c : Integer.compare(va, vb);
+    }
+
+    private static void sort(long[] k, int[] v, int lo, int hi) {
+        while (hi - lo > 16) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(k[mid], v[mid], k[lo], v[lo]) < 0) swap(k, v, mid, lo);
+            if (compare(k[hi], v[hi], k[lo], v[lo]) < 0) swap(k, v, hi, lo);
+            if (compare(k[hi], v[hi], k[mid], v[mid]) < 0) swap(k, v, hi, mid);
+            long pk = k[mid];
+            int pv = v[mid];
+            int i = lo - 1, j = hi + 1;
+            while (true) {
+                do { i++; } while (compare(k[i], v[i], pk, pv) < 0);
+                do { j--; } while (compare(k[j], v[j], pk, pv) > 0);
+                if (i >= j) break;
+                swap(k, v, i, j);
+            }
+            if (j - lo < hi - j) { sort(k, v, lo, j); lo = j + 1; }
+            else                 { sort(k, v, j + 1, hi); hi = j; }
+        }
+        for (int i = lo + 1; i <= hi; i++) {
+            long kk = k[i];
+            int vv = v[i];
+            int j = i - 1;
+            while (j >= lo && compare(k[j], v[j], kk, vv) > 0) {
+                k[j + 1] = k[j];
+                v[j + 1] = v[j];
+                j--;
+            }
+            k[j + 1] = kk;
+            v[j + 1] = vv;
+        }
+    }
+
+    private static void swap(long[] k, int[] v, int a, int b) {
+        long tk = k[a]; k[a] = k[b]; k[b] = tk;
+        int tv = v[a]; v[a] = v[b]; v[b] = tv;
+    }
+}
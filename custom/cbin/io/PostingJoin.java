@@ -0,0 +1,169 @@
+package cbin.io;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+  Intersección y unión en streaming de cursores de ordinales (posting lists de idx.nodesByProp,
+  idx.srcByLabel, idx.dstByLabel o joins anidados), sin materializar ningún lado.
+   - and: leapfrog. Los operandos se ordenan por cost() (el count del .dir para una posting list)
+     y el más chico guía: cada candidato se busca en los demás con advance (galloping sobre la
+     tabla de skip y el bloque); si alguno lo supera, ese valor pasa a ser el nuevo objetivo.
+   - or: merge de los operandos sin repetidos (el mínimo se busca linealmente: pocos operandos).
+   - andNot: los valores del primero que no están en el segundo (advance sobre el segundo).
+  Los operandos guardados como bitmap (listas densas, ver Bitmap) y sin consumir se combinan
+  antes entre sí con las operaciones de Bitmap (de a 64 bits) y entran al join como uno solo.
+  Todos son a su vez OrdinalCursor: se pueden combinar (p.ej. and(src, or(p1, p2))).
+ */
+public final class PostingJoin {
+
+    private PostingJoin() {}
+
+    public static OrdinalCursor and(OrdinalCursor... cursors) {
+        cursors = foldBitmaps(cursors, true);
+        if (cursors.length == 1) return cursors[0];
+        return new And(cursors);
+    }
+
+    public static OrdinalCursor or(OrdinalCursor... cursors) {
+        cursors = foldBitmaps(cursors, false);
+        if (cursors.length == 1) return cursors[0];
+        return new Or(cursors);
+    }
+
+    public static OrdinalCursor andNot(OrdinalCursor in, OrdinalCursor notIn) {
+        Bitmap a = wholeBitmap(in), b = wholeBitmap(notIn);
+        if (a != null && b != null) return a.andNot(b).cursor();
+        return new AndNot(in, notIn);
+    }
+
+    private static Bitmap wholeBitmap(OrdinalCursor c) {
+        return c instanceof GraphReader.Postings p ? p.wholeBitmap() : null;
+    }
+
+    /** Reemplaza los operandos bitmap (si hay más de uno) por su and / or ya calculado. */
+    private static OrdinalCursor[] foldBitmaps(OrdinalCursor[] cursors, boolean and) {
+        List<OrdinalCursor> rest = new ArrayList<>(cursors.length);
+        Bitmap acc = null;
+        int folded = 0;
+        for (OrdinalCursor c : cursors) {
+            Bitmap b = wholeBitmap(c);
+            if (b == null) { rest.add(c); continue; }
+            acc = acc == null ? b : and ? acc.and(b) : acc.or(b);
+            folded++;
+        }
+        if (folded < 2) return cursors;
+        rest.add(acc.cursor());
+        return rest.toArray(new OrdinalCursor[0]);
+    }
+
+    /** Estado común: valor siguiente calculado por adelantado para hasNext. */
+    private abstract static class Lookahead implements OrdinalCursor {
+        private int next;
+        private boolean fetched;
+        int last = -1;
+
+        /** Primer resultado >= target, sin consumirlo todavía (NO_MORE si no hay). */
+        abstract int seek(int target);
+
+        @Override public boolean hasNext() {
+            if (!fetched) { next = last == NO_MORE ? NO_MORE : seek(last + 1); fetched = true; }
+            return next != NO_MORE;
+        }
+
+        @Override public int nextInt() {
+            if (!hasNext()) throw new NoSuchElementException();
+            fetched = false;
+            return last = next;
+        }
+
+        @Override public int advance(int target) {
+            if (!(fetched && next >= target)) {
+                next = last == NO_MORE ? NO_MORE : seek(Math.max(target, last + 1));
+            }
+            fetched = false;
+            return last = next;
+        }
+    }
+
+    private static final class And extends Lookahead {
+        private final OrdinalCursor[] cs;
+        private final int[] cur;                // último valor devuelto por cada operando
+
+        And(OrdinalCursor[] cursors) {
+            this.cs = cursors.clone();
+            Arrays.sort(cs, Comparator.comparingLong(OrdinalCursor::cost));
+            this.cur = new int[cs.length];
+            Arrays.fill(cur, -1);
+        }
+
+        private int to(int i, int target) {
+            return cur[i] >= target ? cur[i] : (cur[i] = cs[i].advance(target));
+        }
+
+        @Override int seek(int target) {
+            int candidate = to(0, target);
+            int i = 1;
+            while (candidate != NO_MORE && i < cs.length) {
+                int v = to(i, candidate);
+                if (v == candidate) { i++; continue; }
+                candidate = to(0, v);
+                i = 1;
+            }
+            return candidate;
+        }
+
+        @Override public long cost() { return cs[0].cost(); }
+    }
+
+    private static final class AndNot extends Lookahead {
+        private final OrdinalCursor in, notIn;
+        private int excluded = -1;              // último valor devuelto por notIn
+
+        AndNot(OrdinalCursor in, OrdinalCursor notIn) {
+            this.in = in;
+            this.notIn = notIn;
+        }
+
+        @Override int seek(int target) {
+            int v = in.advance(target);
+            while (v != NO_MORE) {
+                if (excluded < v) excluded = notIn.advance(v);
+                if (excluded != v) return v;
+                v = in.advance(v + 1);
+            }
+            return v;
+        }
+
+        @Override public long cost() { return in.cost(); }
+    }
+
+    private static final class Or extends Lookahead {
+        private final OrdinalCursor[] cs;
+        private final int[] cur;
+
+        Or(OrdinalCursor[] cursors) {
+            this.cs = cursors.clone();
+            this.cur = new int[cs.length];
+            Arrays.fill(cur, -1);
+        }
+
+        @Override int seek(int target) {
+            int min = NO_MORE;
+            for (int i = 0; i < cs.length; i++) {
+                if (cur[i] < target) cur[i] = cs[i].advance(target);
+                min = Math.min(min, cur[i]);
+            }
+            return min;
+        }
+
+        @Override public long cost() {
+            long c = 0;
+            for (OrdinalCursor x : cs) c += x.cost();
+            return c;
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package cbin.io;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+  Vista de lectura sobre un store con segmentos delta (ver cbin.core.SegmentStore).
+  El archivo <store>/segments lista un directorio por línea, del más viejo al más nuevo: primero
+  la base y después los deltas (sin archivo, el store es solo "." = el ingest de siempre).
+  Cada segmento es un outDir cbin completo (diccionarios e índices propios) más, en los deltas:
+   - segment.meta: [version:u32][own:u32]. Los ordinales >= own son stubs: nodos sin label
+     ni propiedades que el delta agrega solo para dar ordinal a extremos de aristas que viven
+     en segmentos anteriores.
+   - del.nodes.id.* / del.edges.id.*: tombstones (pool de ids borrados, str / lex / ord2pos).
+  Reglas (por id de nodo o arista): el segmento más nuevo que define el id gana; los tombstones de
+  un segmento borran los ids de los segmentos anteriores (el mismo delta puede volver a agregarlos);
+  borrar un nodo oculta también sus aristas de segmentos anteriores y las del propio delta que
+  llegan a él como stub.
+  Al abrir se calcula, por segmento, el Bitmap de nodos y aristas tapados por segmentos más nuevos
+  (y los nodos borrados, aunque sean stubs): costo proporcional a los deltas, no a la base. Las
+  consultas recorren cada segmento con sus índices y descartan con esos bitmaps.
+ */
+public final class SegmentedGraph {
+
+    public static final String MANIFEST = "segments";
+    public static final String META = "segment.meta";
+    public static final String DEL_NODES = "del.nodes.id", DEL_EDGES = "del.edges.id";
+
+    /** Visitor de nodos vivos (compactación). */
+    @FunctionalInterface
+    public interface NodeConsumer { void accept(String id, BinaryGraphFiles.NodeView node); }
+
+    /** Visitor de aristas vivas; src / dst null si el extremo no existía al ingerir. */
+    @FunctionalInterface
+    public interface EdgeConsumer { void accept(String id, String label, String src, String dst); }
+
+    private static final class Segment {
+        final Path dir;
+        final GraphReader r;
+        final int own;
+        final GraphReader.Dict delNodes, delEdges;
+        Bitmap shadowNodes = Bitmap.EMPTY;      // nodos propios redefinidos o borrados después
+        Bitmap shadowEdges = Bitmap.EMPTY;      // aristas redefinidas o borradas después
+        Bitmap deadNodes = Bitmap.EMPTY;        // nodos (propios o stubs) borrados después; stubs borrados por el propio delta
+        final Map<Integer, List<int[]>> removedOut = new HashMap<>(), removedIn = new HashMap<>();
+
+        Segment(Path dir) throws IOException {
+            this.dir = dir;
+            this.r = GraphReader.open(dir);
+            Path meta = dir.resolve(META);
+            if (Files.exists(meta)) {
+                try (var in = new DataInputStream(Files.newInputStream(meta))) {
+                    in.readInt();
+                    this.own = in.readInt();
+                }
+            } else {
+                this.own = r.nodeCount();
+            }
+            this.delNodes = GraphReader.Dict.open(dir, DEL_NODES);
+            this.delEdges = GraphReader.Dict.open(dir, DEL_EDGES);
+        }
+
+        boolean liveNode(int ord) { return ord >= 0 && ord < own && !shadowNodes.contains(ord); }
+    }
+
+    private final List<Segment> segs = new ArrayList<>();
+
+    private SegmentedGraph(Path store, List<String> names) throws IOException {
+        for (String name : names) segs.add(new Segment(store.resolve(name)));
+        computeShadows();
+    }
+
+    public static SegmentedGraph open(Path store) throws IOException {
+        return new SegmentedGraph(store, manifest(store));
+    }
+
+    /** Igual, sobre una lista fija de segmentos (p.ej. la foto que compacta SegmentStore). */
+    public static SegmentedGraph open(Path store, List<String> names) throws IOException {
+        return new SegmentedGraph(store, names);
+    }
+
+    /** Segmentos del store, del más viejo al más nuevo ("." si no hay manifest). */
+    public static List<String> manifest(Path store) throws IOException {
+        Path m = store.resolve(MANIFEST);
+        if (!Files.exists(m)) return List.of(".");
+        List<String> names = new ArrayList<>();
+        for (String line : Files.readAllLines(m, StandardCharsets.UTF_8)) {
+            if (!line.isBlank()) names.add(line.trim());
+        }
+        return names;
+    }
+
+    /**
+      Directorio a leer con un GraphReader: el outDir (o .cbin) tal cual, o el único segmento de un
+      store compactado. Con varios segmentos falla: esa vista solo la arma SegmentedGraph (q-store).
+     */
+    public static Path singleSegment(Path store) throws IOException {
+        if (!Files.isDirectory(store)) return store;
+        List<String> names = manifest(store);
+        if (names.size() > 1) {
+            throw new IOException(store + " tiene " + names.size() + " segmentos delta: consultar con q-store o compactar antes");
+        }
+        return store.resolve(names.get(0)).normalize();
+    }
+
+    public int segmentCount() { return segs.size(); }
+    public List<Path> segmentDirs() { return segs.stream().map(s -> s.dir).toList(); }
+
+    // ===== tapados por segmentos más nuevos =====
+
+    private void computeShadows() {
+        int k = segs.size();
+        List<IntList> nodes = new ArrayList<>(), edges = new ArrayList<>(), dead = new ArrayList<>();
+        for (int i = 0; i < k; i++) { nodes.add(new IntList()); edges.add(new IntList()); dead.add(new IntList()); }
+        // un lote que agrega una arista y borra su extremo: el stub del propio segmento queda muerto
+        for (int i = 0; i < k; i++) {
+            Segment t = segs.get(i);
+            for (int d = 0; d < t.delNodes.size(); d++) {
+                int o = t.r.nodeOrdinal(t.delNodes.get(d));
+                if (o >= t.own) dead.get(i).add(o);
+            }
+        }
+        for (int i = k - 1; i > 0; i--) {
+            Segment t = segs.get(i);
+            List<String> ownIds = new ArrayList<>(), delIds = new ArrayList<>(), edgeIds = new ArrayList<>();
+            for (int o = 0; o < t.own; o++) ownIds.add(t.r.nodeId(o));
+            for (int o = 0; o < t.delNodes.size(); o++) delIds.add(t.delNodes.get(o));
+            for (int e = 0; e < t.r.edgeCount(); e++) edgeIds.add(t.r.edgeId(e));
+            for (int o = 0; o < t.delEdges.size(); o++) edgeIds.add(t.delEdges.get(o));
+            for (int j = 0; j < i; j++) {
+                Segment s = segs.get(j);
+                for (String id : ownIds) {
+                    int o = s.r.nodeOrdinal(id);
+                    if (o >= 0 && o < s.own) nodes.get(j).add(o);
+                }
+                for (String id : delIds) {
+                    int o = s.r.nodeOrdinal(id);
+                    if (o < 0) continue;
+                    dead.get(j).add(o);
+                    if (o < s.own) nodes.get(j).add(o);
+                }
+                for (String id : edgeIds) {
+                    int e = s.r.edgeOrdinal(id);
+                    if (e >= 0) edges.get(j).add(e);
+                }
+            }
+        }
+        for (int j = 0; j < k; j++) {
+            Segment s = segs.get(j);
+            s.shadowNodes = nodes.get(j).toBitmap();
+            s.deadNodes = dead.get(j).toBitmap();
+            s.shadowEdges = edges.get(j).toBitmap();
+            s.shadowEdges.forEach(e -> {
+                int src = s.r.edgeSource(e), dst = s.r.edgeTarget(e), label = s.r.edgeLabelId(e);
+                if (src < 0 || dst < 0) return;
+                s.removedOut.computeIfAbsent(src, x -> new ArrayList<>()).add(new int[]{label, dst});
+                s.removedIn.computeIfAbsent(dst, x -> new ArrayList<>()).add(new int[]{label, src});
+            });
+        }
+    }
+
+    // ===== nodos =====
+
+    /** Nodo por id en su versión más nueva, o null si no existe o está borrado. */
+    public BinaryGraphFiles.NodeView node(String nodeId) {
+        for (int i = segs.size() - 1; i >= 0; i--) {
+            Segment s = segs.get(i);
+            int o = s.r.nodeOrdinal(nodeId);
+            if (o >= 0 && o < s.own) return s.r.node(o);
+            if (s.delNodes.idOf(nodeId) >= 0) return null;
+        }
+        return null;
+    }
+
+    /** Ids de los nodos vivos con propName = propValue (por segmento, de la base a los deltas). */
+    public int forEachNodeByProperty(String propName, String propValue, Consumer<String> onNodeId) {
+        int count = 0;
+        for (Segment s : segs) {
+            OrdinalCursor c = s.r.nodesByProperty(propName, propValue);
+            if (s.shadowNodes.cardinality() > 0) c = PostingJoin.andNot(c, s.shadowNodes.cursor());
+            count += s.r.nodeIds().forEach(c, onNodeId);
+        }
+        return count;
+    }
+
+    /** Recorre todos los nodos vivos (versión más nueva de cada id). */
+    public void forEachNode(NodeConsumer onNode) {
+        for (Segment s : segs) {
+            for (int o = 0; o < s.own; o++) {
+                if (s.liveNode(o)) onNode.accept(s.r.nodeId(o), s.r.node(o));
+            }
+        }
+    }
+
+    // ===== aristas =====
+
+    private boolean liveEdge(Segment s, int e) {
+        if (s.shadowEdges.contains(e)) return false;
+        if (s.deadNodes.cardinality() == 0) return true;
+        return !s.deadNodes.contains(s.r.edgeSource(e)) && !s.deadNodes.contains(s.r.edgeTarget(e));
+    }
+
+    /** Ids de las aristas vivas con ese label. */
+    public int forEachEdgeIdByLabel(String label, Consumer<String> onEdgeId) {
+        int[] count = {0};
+        for (Segment s : segs) {
+            s.r.forEachEdgeByLabel(label, e -> {
+                if (!liveEdge(s, e)) return;
+                onEdgeId.accept(s.r.edgeId(e));
+                count[0]++;
+            });
+        }
+        return count[0];
+    }
+
+    /** Recorre todas las aristas vivas (versión más nueva de cada id). */
+    public void forEachEdge(EdgeConsumer onEdge) {
+        for (Segment s : segs) {
+            for (int e = 0; e < s.r.edgeCount(); e++) {
+                if (!liveEdge(s, e)) continue;
+                onEdge.accept(s.r.edgeId(e), s.r.labels().get(s.r.edgeLabelId(e)),
+                        endpoint(s, s.r.edgeSource(e)), endpoint(s, s.r.edgeTarget(e)));
+            }
+        }
+    }
+
+    /**
+      Id del extremo de una arista del segmento, o null si no existe: sin resolver al ingerir, o
+      stub de un id que ningún segmento define (deltas escritos antes de que ingestDelta lo filtrara).
+     */
+    private String endpoint(Segment s, int ord) {
+        if (ord < 0) return null;
+        String id = s.r.nodeId(ord);
+        return ord < s.own || node(id) != null ? id : null;
+    }
+
+    // ===== vecinos =====
+
+    /** Vecinos salientes (ids) del nodo; label null = cualquiera. Devuelve la cantidad emitida. */
+    public int forEachOutNeighbor(String nodeId, String label, Consumer<String> onNeighbor) {
+        return forEachNeighbor(nodeId, label, true, onNeighbor);
+    }
+
+    /** Vecinos entrantes (ids) del nodo; label null = cualquiera. Devuelve la cantidad emitida. */
+    public int forEachInNeighbor(String nodeId, String label, Consumer<String> onNeighbor) {
+        return forEachNeighbor(nodeId, label, false, onNeighbor);
+    }
+
+    private int forEachNeighbor(String nodeId, String label, boolean out, Consumer<String> onNeighbor) {
+        if (node(nodeId) == null) return 0;
+        int count = 0;
+        for (Segment s : segs) {
+            int o = s.r.nodeOrdinal(nodeId);
+            if (o < 0 || s.deadNodes.contains(o)) continue;
+            int l = label == null ? -1 : s.r.labels().idOf(label);
+            if (label != null && l < 0) continue;
+            // aristas de este segmento redefinidas / borradas después: se descuentan como multiconjunto
+            Map<Long, Integer> skip = new HashMap<>();
+            for (int[] x : (out ? s.removedOut : s.removedIn).getOrDefault(o, List.of())) skip.merge(((long) x[0] << 32) | (x[1] & 0xFFFFFFFFL), 1, Integer::sum);
+            List<Integer> nbrs = new ArrayList<>();
+            (out ? s.r.outAdjacency() : s.r.inAdjacency()).forEach(o, (nbr, lab) -> {
+                if (l >= 0 && lab != l) return;
+                if (!skip.isEmpty()) {
+                    long key = ((long) lab << 32) | (nbr & 0xFFFFFFFFL);
+                    Integer left = skip.get(key);
+                    if (left != null) {
+                        if (left == 1) skip.remove(key); else skip.put(key, left - 1);
+                        return;
+                    }
+                }
+                if (!s.deadNodes.contains(nbr)) nbrs.add(nbr);
+            });
+            for (int nbr : nbrs) {
+                String id = endpoint(s, nbr);
+                if (id == null) continue;
+                onNeighbor.accept(id);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /** Lista creciente de int -> Bitmap (ordenada y sin repetidos). */
+    private static final class IntList {
+        private int[] a = new int[16];
+        private int n;
+
+        void add(int v) {
+            if (n == a.length) a = Arrays.copyOf(a, n * 2);
+            a[n++] = v;
+        }
+
+        Bitmap toBitmap() {
+            if (n == 0) return Bitmap.EMPTY;
+            int[] v = Arrays.copyOf(a, n);
+            Arrays.sort(v);
+            Bitmap.Builder b = new Bitmap.Builder();
+            for (int i = 0; i < v.length; i++) if (i == 0 || v[i] != v[i - 1]) b.add(v[i]);
+            return b.build();
+        }
+    }
+}
@@ -1,9 +1,10 @@
 package com.map.db;
 
+import com.pgdf.PgdfTokenizer;
 import org.mapdb.*;
 
-import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Serial;
 import java.io.Serializable;
 import java.nio.charset.StandardCharsets;
@@ -119,41 +120,29 @@ public class GraphStore implements AutoCloseable {
 
     // ===== ingest =====
     public void ingestNodes(Path nodesPgdf) throws IOException {
-        try (BufferedReader br = Files.newBufferedReader(nodesPgdf, StandardCharsets.UTF_8)) {
-            String line; String[] header = null;
+        try (InputStream in = Files.newInputStream(nodesPgdf)) {
+            PgdfTokenizer t = PgdfTokenizer.of(in);
             long written = 0;
             final long BATCH = 100_000; 
 
-            while ((line = br.readLine()) != null) {
-                if (line.isBlank()) continue;
-                if (line.startsWith("@")) {
-                    header = Arrays.stream(line.split("\\|")).map(String::trim).toArray(String[]::new);
-                    continue;
-                }
-                if (header == null) continue;
-
-                String[] cols = line.split("\\|", -1);
-                Map<String,String> row = new LinkedHashMap<>();
-                for (int i=0;i<header.length && i<cols.length;i++) row.put(header[i], cols[i]);
-
-                String nodeId = row.getOrDefault("@id","").trim();
-                String label  = row.getOrDefault("@label","").trim();
-                if (nodeId.isEmpty() || label.isEmpty()) continue;
+            while (t.next()) {
+                PgdfTokenizer.Header h = t.header();
+                if (t.trimLen(h.id) == 0 || t.trimLen(h.label) == 0) continue;
+                String nodeId = t.trimmed(h.id);
+                String label  = t.intern(h.label);
 
+                // el NodeBlob se persiste con su mapa; solo columnas no vacías (nombre repetido: la última)
                 Map<String,String> props = new LinkedHashMap<>();
-                for (var e : row.entrySet()){
-                    String k = e.getKey();
-                    if ("@id".equals(k) || "@label".equals(k)) continue;
-                    String v = e.getValue()==null? "" : e.getValue();
-                    if (!v.isEmpty()) props.put(k, v);
+                for (int c = 0, n = t.columns(); c < n; c++) {
+                    int v = h.valueColumn(c, n);
+                    if (h.isReserved(c) || v < 0 || t.len(v) == 0) continue;
+                    props.put(h.names[c], t.str(v));
                 }
 
                 nodes.put(nodeId, new NodeBlob(label, props));
 
                 for (var e : props.entrySet()) {
-                    String val = e.getValue();
-                    if (val == null || val.isEmpty()) continue;
-                    idxNodesByProp.add(kNodesByProp(e.getKey(), norm(val), nodeId));
+                    idxNodesByProp.add(kNodesByProp(e.getKey(), norm(e.getValue()), nodeId));
                 }
 
                 if ((++written % BATCH) == 0) db.commit();
@@ -163,31 +152,20 @@ public class GraphStore implements AutoCloseable {
     }
 
     public void ingestEdges(Path edgesPgdf) throws IOException {
-        try (BufferedReader br = Files.newBufferedReader(edgesPgdf, StandardCharsets.UTF_8)) {
-            String line; String[] header = null;
+        try (InputStream in = Files.newInputStream(edgesPgdf)) {
+            PgdfTokenizer t = PgdfTokenizer.of(in);
             long written = 0;
             final long BATCH = 200_000;
 
-            while ((line = br.readLine()) != null) {
-                if (line.isBlank()) continue;
-                if (line.startsWith("@")) {
-                    header = Arrays.stream(line.split("\\|")).map(String::trim).toArray(String[]::new);
-                    continue;
-                }
-                if (header == null) continue;
-
-                String[] cols = line.split("\\|", -1);
-                Map<String,String> row = new HashMap<>();
-                for (int i=0;i<header.length && i<cols.length;i++) row.put(header[i], cols[i]);
-
-                String edgeId = row.getOrDefault("@id","").trim();
-                String label  = row.getOrDefault("@label","").trim();
-                String dir    = row.getOrDefault("@dir","T").trim();
-                String src    = row.getOrDefault("@out","").trim();
-                String dst    = row.getOrDefault("@in","").trim();
-                if (label.isEmpty() || src.isEmpty() || dst.isEmpty()) continue;
-                if (!"T".equalsIgnoreCase(dir)) continue;
+            while (t.next()) {
+                PgdfTokenizer.Header h = t.header();
+                if (t.trimLen(h.label) == 0 || t.trimLen(h.out) == 0 || t.trimLen(h.in) == 0) continue;
+                if (t.has(h.dir) && !t.trimmedEqualsIgnoreCaseAscii(h.dir, "T")) continue;
 
+                String label  = t.intern(h.label);
+                String src    = t.trimmed(h.out);
+                String dst    = t.trimmed(h.in);
+                String edgeId = t.trimmed(h.id);
                 if (edgeId.isEmpty()) edgeId = makeEdgeId(src, label, dst);
 
                 edges.put(edgeId, new EdgeBlob(label, src, dst));
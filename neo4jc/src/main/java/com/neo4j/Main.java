@@ -9,10 +9,14 @@ import org.neo4j.driver.Session;
 import org.neo4j.driver.Transaction;
 import org.neo4j.driver.Record;
 
+import com.pgdf.PgdfTokenizer;
+
 import java.io.FileReader;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.*;
@@ -155,39 +159,26 @@ public class Main {
         SET n += row.props
         """;
 
-    try (BufferedReader br = Files.newBufferedReader(nodesPgdf, StandardCharsets.UTF_8)) {
-        String line;
-        String[] header = null;
+    try (InputStream in = new BufferedInputStream(Files.newInputStream(nodesPgdf), 1 << 20)) {
+        PgdfTokenizer t = PgdfTokenizer.of(in);
         long nCount = 0;
 
         // Batch buffer
         List<Map<String, Object>> batch = new ArrayList<>(NODE_BATCH);
 
-        while ((line = br.readLine()) != null) {
-            if (line.isBlank()) continue;
-
-            if (line.startsWith("@")) {
-                header = line.split("\\|", -1);
-                continue;
-            }
-            if (header == null) continue;
-
-            String[] cols = line.split("\\|", -1);
-            Map<String, String> row = new LinkedHashMap<>();
-            for (int i = 0; i < header.length && i < cols.length; i++) {
-                row.put(header[i], cols[i]);
-            }
-
-            String id = nonNull(row.get("@id")).trim();
-            String label = nonNull(row.get("@label")).trim();
+        while (t.next()) {
+            PgdfTokenizer.Header h = t.header();
+            String id = t.trimmed(h.id);
+            String label = t.trimmed(h.label);
             if (id.isEmpty() || label.isEmpty()) continue;
 
+            // como el LinkedHashMap por fila: si el nombre se repite, queda la última columna
             Map<String, Object> props = new LinkedHashMap<>();
-            for (var e : row.entrySet()) {
-                String k = e.getKey();
+            for (int i = 0; i < t.columns(); i++) {
+                String k = h.names[i];
                 if ("@id".equals(k) || "@label".equals(k)) continue;
-                String v = nonNull(e.getValue()).trim();
-                if (!v.isEmpty()) props.put(k, v);
+                if (t.trimLen(i) > 0) props.put(k, t.trimmed(i));
+                else props.remove(k);
             }
 
             Map<String, Object> nodeData = new HashMap<>();
@@ -224,30 +215,19 @@ public class Main {
     //Ingesta de aristas
 // Ingesta de aristas (sin tx exterior; tx por lote)
 private static void ingestEdges(Session session, Path edgesPgdf) throws IOException {
-    try (BufferedReader br = Files.newBufferedReader(edgesPgdf, StandardCharsets.UTF_8)) {
-        String line = br.readLine();
-        if (line == null) {
-            System.out.println("  Edges: 0");
-            return;
-        }
-
-        String[] header = line.split("\\|", -1);
-        Map<String, Integer> idx = new HashMap<>();
-        for (int i = 0; i < header.length; i++) idx.put(header[i], i);
-
+    try (InputStream in = new BufferedInputStream(Files.newInputStream(edgesPgdf), 1 << 20)) {
+        PgdfTokenizer t = PgdfTokenizer.of(in);
         long eCount = 0;
         int batchCount = 0;
         List<Map<String, Object>> batch = new ArrayList<>(EDGE_BATCH);
 
-        while ((line = br.readLine()) != null) {
-            if (line.isBlank() || line.startsWith("@")) continue;
-
-            String[] cols = line.split("\\|", -1);
-            String eid = safe(cols, idx.get("@id"));
-            String lab = safe(cols, idx.get("@label"));
-            String dir = safe(cols, idx.get("@dir"));
-            String src = safe(cols, idx.get("@out"));
-            String dst = safe(cols, idx.get("@in"));
+        while (t.next()) {
+            PgdfTokenizer.Header h = t.header();
+            String eid = t.str(h.id);
+            String lab = t.str(h.label);
+            String dir = t.str(h.dir);
+            String src = t.str(h.out);
+            String dst = t.str(h.in);
 
             if (lab.isEmpty() || src.isEmpty() || dst.isEmpty()) continue;
 
@@ -390,12 +370,6 @@ private static void executeEdgeBatch(Transaction tx, List<Map<String, Object>> b
     }
 
 
-    private static String nonNull(String s){ return (s == null) ? "" : s; }
-    private static String safe(String[] a, Integer i){
-        if (i == null || i < 0 || i >= a.length) return "";
-        String s = a[i];
-        return s == null ? "" : s;
-    }
     private static String makeEdgeId(String src, String label, String dst) {
         String s = src + "|" + label + "|" + dst;
         long x = 1125899906842597L;
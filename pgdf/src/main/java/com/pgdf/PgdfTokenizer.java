@@ -0,0 +1,283 @@
+package com.pgdf;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+  Tokenizer PGDF sobre bytes UTF-8 (sin split ni maps por fila).
+   - Lee de un InputStream o de un ByteBuffer (p.ej. un rango mmapeado) hacia un buffer grande reutilizable.
+   - next() avanza a la siguiente fila de datos; las líneas @header se procesan internamente.
+   - La fila actual es una vista flyweight: los campos son rangos [start, end) sobre bytes(),
+     válidos solo hasta el siguiente next(). Strings solo si se piden (str/trimmed/intern).
+   - Header con nombres de columna ya trimmeados/internados y posiciones de @id/@label/@dir/@out/@in.
+  Misma semántica que el parseo con split: header sin columnas vacías al final, campos faltantes
+  al final de la fila = ausentes, columnas de más ignoradas, '\r' final removido, líneas en blanco ignoradas.
+  Único tokenizer del repo: lo usan cbin (custom/), rocksstorage, mapdbstorage y neo4jc; no depende de nada.
+ */
+public final class PgdfTokenizer {
+
+    /** Header PGDF: nombres de columna (trim) y columnas especiales. */
+    public static final class Header {
+        public final String[] names;
+        public final byte[][] nameUtf8;
+        public final int id, label, dir, out, in;
+        private final int[] prevSame, nextSame;     // columna anterior / siguiente con el mismo nombre (-1 = ninguna)
+
+        Header(String[] names) {
+            this.names = names;
+            this.nameUtf8 = new byte[names.length][];
+            this.prevSame = new int[names.length];
+            this.nextSame = new int[names.length];
+            Map<String, Integer> lastOf = new HashMap<>();
+            int id = -1, label = -1, dir = -1, out = -1, in = -1;
+            for (int i = 0; i < names.length; i++) {
+                names[i] = names[i].intern();
+                nameUtf8[i] = names[i].getBytes(StandardCharsets.UTF_8);
+                Integer prev = lastOf.put(names[i], i);
+                prevSame[i] = prev == null ? -1 : prev;
+                nextSame[i] = -1;
+                if (prev != null) nextSame[prev] = i;
+                // como en un LinkedHashMap: si el nombre se repite, gana la última columna
+                switch (names[i]) {
+                    case "@id" -> id = i;
+                    case "@label" -> label = i;
+                    case "@dir" -> dir = i;
+                    case "@out" -> out = i;
+                    case "@in" -> in = i;
+                    default -> { }
+                }
+            }
+            this.id = id; this.label = label; this.dir = dir; this.out = out; this.in = in;
+        }
+
+        public static Header parse(String line) {
+            return new Header(Arrays.stream(line.split("\\|")).map(String::trim).toArray(String[]::new));
+        }
+
+        /** Columna "especial" (@id, @label, ...) que no es propiedad. */
+        public boolean isReserved(int col) {
+            return col == id || col == label;
+        }
+
+        /**
+          Columna de la que sale el valor del nombre de col en una fila de n columnas, o -1 si col
+          no es la primera con ese nombre. Como en un LinkedHashMap: la propiedad queda en la
+          posición de su primera columna con el valor de la última presente en la fila.
+         */
+        public int valueColumn(int col, int n) {
+            if (prevSame[col] >= 0) return -1;
+            int v = col;
+            while (nextSame[v] >= 0 && nextSame[v] < n) v = nextSame[v];
+            return v;
+        }
+    }
+
+    private interface Source { int read(byte[] dst, int off, int len) throws IOException; }
+
+    private final Source src;
+    private byte[] buf = new byte[1 << 20];
+    private int pos = 0, lim = 0;
+    private boolean eof = false;
+
+    private Header header;
+    private int lineStart, lineEnd;
+    private int[] fs = new int[32], fe = new int[32];     // inicio/fin de cada campo
+    private int nf;
+
+    // cache de Strings internados por bytes (labels, valores repetidos de @dir, etc.)
+    private byte[][] internKeys = new byte[256][];
+    private String[] internVals = new String[256];
+    private int internCount = 0;
+
+    private PgdfTokenizer(Source src) { this.src = src; }
+
+    public static PgdfTokenizer of(InputStream in) {
+        return new PgdfTokenizer((dst, off, len) -> in.read(dst, off, len));
+    }
+
+    public static PgdfTokenizer of(ByteBuffer bb) {
+        ByteBuffer b = bb.duplicate();
+        return new PgdfTokenizer((dst, off, len) -> {
+            if (!b.hasRemaining()) return -1;
+            int n = Math.min(len, b.remaining());
+            b.get(dst, off, n);
+            return n;
+        });
+    }
+
+    /** Header vigente (null antes del primer @header). */
+    public Header header() { return header; }
+
+    /** Fija el header inicial (p.ej. el heredado por un chunk que empieza a mitad de archivo). */
+    public void header(Header h) { this.header = h; }
+
+    /** Avanza a la siguiente fila de datos (con header). false al final. */
+    public boolean next() throws IOException {
+        while (nextLine()) {
+            if (isBlank(lineStart, lineEnd)) continue;
+            if (buf[lineStart] == '@') {
+                header = Header.parse(new String(buf, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8));
+                continue;
+            }
+            if (header == null) continue;
+            split();
+            return true;
+        }
+        return false;
+    }
+
+    private boolean nextLine() throws IOException {
+        while (true) {
+            for (int i = pos; i < lim; i++) {
+                if (buf[i] == '\n') {
+                    lineStart = pos;
+                    lineEnd = i;
+                    pos = i + 1;
+                    if (lineEnd > lineStart && buf[lineEnd - 1] == '\r') lineEnd--;
+                    return true;
+                }
+            }
+            if (eof) {
+                if (pos >= lim) return false;
+                lineStart = pos;
+                lineEnd = lim;
+                pos = lim;
+                if (lineEnd > lineStart && buf[lineEnd - 1] == '\r') lineEnd--;
+                return true;
+            }
+            fill();
+        }
+    }
+
+    private void fill() throws IOException {
+        if (pos > 0) {
+            System.arraycopy(buf, pos, buf, 0, lim - pos);
+            lim -= pos;
+            pos = 0;
+        }
+        if (lim == buf.length) buf = Arrays.copyOf(buf, buf.length * 2);   // línea más grande que el buffer
+        int r = src.read(buf, lim, buf.length - lim);
+        if (r < 0) eof = true;
+        else lim += r;
+    }
+
+    private boolean isBlank(int s, int e) {
+        for (int i = s; i < e; i++) if ((buf[i] & 0xFF) > ' ') return false;
+        return true;
+    }
+
+    private void split() {
+        nf = 0;
+        int s = lineStart;
+        for (int i = lineStart; i <= lineEnd; i++) {
+            if (i == lineEnd || buf[i] == '|') {
+                if (nf == fs.length) { fs = Arrays.copyOf(fs, nf * 2); fe = Arrays.copyOf(fe, nf * 2); }
+                fs[nf] = s;
+                fe[nf] = i;
+                nf++;
+                s = i + 1;
+            }
+        }
+    }
+
+    // ===== vista de la fila actual =====
+
+    /** Bytes subyacentes; los rangos start/end son índices sobre este arreglo. */
+    public byte[] bytes() { return buf; }
+
+    /** Cantidad de columnas presentes (las del header que tienen valor en la fila). */
+    public int columns() { return header == null ? 0 : Math.min(header.names.length, nf); }
+
+    public boolean has(int col) { return col >= 0 && col < columns(); }
+
+    public int start(int col) { return fs[col]; }
+    public int end(int col) { return fe[col]; }
+    public int len(int col) { return fe[col] - fs[col]; }
+
+    /** Inicio/fin sin blancos (equivale a String.trim sobre el campo). */
+    public int trimStart(int col) {
+        int s = fs[col], e = fe[col];
+        while (s < e && (buf[s] & 0xFF) <= ' ') s++;
+        return s;
+    }
+    public int trimEnd(int col) {
+        int s = fs[col], e = fe[col];
+        while (e > s && (buf[e - 1] & 0xFF) <= ' ') e--;
+        return e;
+    }
+    public int trimLen(int col) { return has(col) ? trimEnd(col) - trimStart(col) : 0; }
+
+    /** Valor del campo (sin trim) o "" si la columna no está presente. Aloca un String. */
+    public String str(int col) {
+        if (!has(col)) return "";
+        return new String(buf, fs[col], fe[col] - fs[col], StandardCharsets.UTF_8);
+    }
+
+    /** Valor trimmeado o "" si la columna no está presente. Aloca un String. */
+    public String trimmed(int col) {
+        if (!has(col)) return "";
+        int s = trimStart(col);
+        return new String(buf, s, trimEnd(col) - s, StandardCharsets.UTF_8);
+    }
+
+    /**
+      Valor trimmeado e internado: el mismo String para los mismos bytes (sin alocar tras la
+      primera vez). Pensado para tokens de baja cardinalidad (labels, @dir).
+     */
+    public String intern(int col) {
+        if (!has(col)) return "";
+        int s = trimStart(col), e = trimEnd(col);
+        int h = hash(buf, s, e - s);
+        int mask = internKeys.length - 1;
+        int i = h & mask;
+        while (internKeys[i] != null) {
+            byte[] k = internKeys[i];
+            if (Arrays.equals(k, 0, k.length, buf, s, e)) return internVals[i];
+            i = (i + 1) & mask;
+        }
+        String v = new String(buf, s, e - s, StandardCharsets.UTF_8).intern();
+        internKeys[i] = Arrays.copyOfRange(buf, s, e);
+        internVals[i] = v;
+        if (++internCount * 2 > internKeys.length) rehashIntern();
+        return v;
+    }
+
+    private void rehashIntern() {
+        byte[][] ok = internKeys;
+        String[] ov = internVals;
+        internKeys = new byte[ok.length * 2][];
+        internVals = new String[ok.length * 2];
+        int mask = internKeys.length - 1;
+        for (int j = 0; j < ok.length; j++) {
+            if (ok[j] == null) continue;
+            int i = hash(ok[j], 0, ok[j].length) & mask;
+            while (internKeys[i] != null) i = (i + 1) & mask;
+            internKeys[i] = ok[j];
+            internVals[i] = ov[j];
+        }
+    }
+
+    /** FNV-1a sobre bytes (solo para la tabla de intern). */
+    private static int hash(byte[] b, int off, int len) {
+        int h = 0x811C9DC5;
+        for (int i = off; i < off + len; i++) { h ^= b[i] & 0xFF; h *= 0x01000193; }
+        return h ^ (h >>> 16);
+    }
+
+    /** Compara el campo trimmeado con t ignorando mayúsculas ASCII (p.ej. @dir == "T"). */
+    public boolean trimmedEqualsIgnoreCaseAscii(int col, String t) {
+        if (!has(col)) return false;
+        int s = trimStart(col), e = trimEnd(col);
+        if (e - s != t.length()) return false;
+        for (int i = 0; i < t.length(); i++) {
+            int a = buf[s + i] & 0xFF, b = t.charAt(i);
+            if (a >= 'A' && a <= 'Z') a += 32;
+            if (b >= 'A' && b <= 'Z') b += 32;
+            if (a != b) return false;
+        }
+        return true;
+    }
+}
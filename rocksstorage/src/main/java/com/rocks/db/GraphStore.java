@@ -1,9 +1,10 @@
 package com.rocks.db;
 
+import com.pgdf.PgdfTokenizer;
 import org.rocksdb.*;
 
-import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
@@ -112,21 +113,28 @@ public class GraphStore implements AutoCloseable {
 
     // === Blobs ===
 
-    private static byte[] encodeNodeBlob(String label, Map<String,String> props){
-        byte[] lb = label.getBytes(StandardCharsets.UTF_8);
-        int size = 2 + lb.length + 2;
-        for (var e: props.entrySet()){
-            size += 2 + e.getKey().getBytes(StandardCharsets.UTF_8).length
-                    + 4 + e.getValue().getBytes(StandardCharsets.UTF_8).length;
+    /** Blob del nodo a partir de la fila actual del tokenizer (mismo formato que decodeNodeBlob; un valor por nombre, el último). */
+    private static byte[] encodeNodeBlob(PgdfTokenizer t){
+        PgdfTokenizer.Header h = t.header();
+        byte[] buf = t.bytes();
+        int ls = t.trimStart(h.label), ll = t.trimEnd(h.label) - ls;
+        int cols = t.columns(), pc = 0;
+        int size = 2 + ll + 2;
+        for (int c = 0; c < cols; c++){
+            int v = h.valueColumn(c, cols);
+            if (h.isReserved(c) || v < 0) continue;
+            size += 2 + h.nameUtf8[c].length + 4 + t.len(v);
+            pc++;
         }
         ByteBuffer bb = ByteBuffer.allocate(size).order(ByteOrder.BIG_ENDIAN);
-        bb.putShort((short)lb.length).put(lb);
-        bb.putShort((short)props.size());
-        for (var e: props.entrySet()){
-            byte[] k = e.getKey().getBytes(StandardCharsets.UTF_8);
-            byte[] v = e.getValue().getBytes(StandardCharsets.UTF_8);
+        bb.putShort((short)ll).put(buf, ls, ll);
+        bb.putShort((short)pc);
+        for (int c = 0; c < cols; c++){
+            int v = h.valueColumn(c, cols);
+            if (h.isReserved(c) || v < 0) continue;
+            byte[] k = h.nameUtf8[c];
             bb.putShort((short)k.length).put(k);
-            bb.putInt(v.length).put(v);
+            bb.putInt(t.len(v)).put(buf, t.start(v), t.len(v));
         }
         return bb.array();
     }
@@ -238,41 +246,23 @@ public class GraphStore implements AutoCloseable {
 
     /** nodes.pgdf  */
     public void ingestNodes(Path nodesPgdf) throws IOException, RocksDBException {
-        try (BufferedReader br = Files.newBufferedReader(nodesPgdf, StandardCharsets.UTF_8);
+        try (InputStream in = Files.newInputStream(nodesPgdf);
              WriteOptions wo = new WriteOptions()) {
 
-            String line; String[] header = null;
-            while ((line = br.readLine()) != null) {
-                if (line.isBlank()) continue;
-                if (line.startsWith("@")) {
-                    header = Arrays.stream(line.split("\\|")).map(String::trim).toArray(String[]::new);
-                    continue;
-                }
-                if (header == null) continue;
-
-                String[] cols = line.split("\\|", -1);
-                Map<String,String> row = new LinkedHashMap<>();
-                for (int i=0;i<header.length && i<cols.length;i++) row.put(header[i], cols[i]);
-
-                String nodeId = row.getOrDefault("@id","").trim();
-                String label  = row.getOrDefault("@label","").trim();
-                if (nodeId.isEmpty() || label.isEmpty()) continue;
-
-                Map<String,String> props = new LinkedHashMap<>();
-                for (var e : row.entrySet()){
-                    String k = e.getKey();
-                    if ("@id".equals(k) || "@label".equals(k)) continue;
-                    String v = e.getValue()==null? "" : e.getValue();
-                    props.put(k, v);
-                }
+            PgdfTokenizer t = PgdfTokenizer.of(in);
+            while (t.next()) {
+                PgdfTokenizer.Header h = t.header();
+                if (t.trimLen(h.id) == 0 || t.trimLen(h.label) == 0) continue;
+                String nodeId = t.trimmed(h.id);
 
                 // guardar nodo
-                db.put(cfNodes, keyNode(nodeId), encodeNodeBlob(label, props));
+                db.put(cfNodes, keyNode(nodeId), encodeNodeBlob(t));
 
-                // índice de propiedad (igualdad exacta)
-                for (var e : props.entrySet()){
-                    if (e.getValue()==null || e.getValue().isEmpty()) continue;
-                    byte[] k = idxKey("prop", e.getKey(), new String(norm(e.getValue()), StandardCharsets.UTF_8), nodeId);
+                // índice de propiedad (igualdad exacta; nombre repetido: solo el último valor)
+                for (int c = 0, n = t.columns(); c < n; c++) {
+                    int v = h.valueColumn(c, n);
+                    if (h.isReserved(c) || v < 0 || t.len(v) == 0) continue;
+                    byte[] k = idxKey("prop", h.names[c], new String(norm(t.str(v)), StandardCharsets.UTF_8), nodeId);
                     db.put(cfIndex, k, new byte[0]);
                 }
             }
@@ -281,30 +271,19 @@ public class GraphStore implements AutoCloseable {
 
     /** edges.pgdf: @id|@label|@dir|@out|@in  */
     public void ingestEdges(Path edgesPgdf) throws IOException, RocksDBException {
-        try (BufferedReader br = Files.newBufferedReader(edgesPgdf, StandardCharsets.UTF_8);
+        try (InputStream in = Files.newInputStream(edgesPgdf);
              WriteOptions wo = new WriteOptions()) {
 
-            String line; String[] header = null;
-            while ((line = br.readLine()) != null) {
-                if (line.isBlank()) continue;
-                if (line.startsWith("@")) {
-                    header = Arrays.stream(line.split("\\|")).map(String::trim).toArray(String[]::new);
-                    continue;
-                }
-                if (header == null) continue;
-
-                String[] cols = line.split("\\|", -1);
-                Map<String,String> row = new HashMap<>();
-                for (int i=0;i<header.length && i<cols.length;i++) row.put(header[i], cols[i]);
-
-                String edgeId = row.getOrDefault("@id","").trim();
-                String label  = row.getOrDefault("@label","").trim();
-                String dir    = row.getOrDefault("@dir","T").trim();
-                String src    = row.getOrDefault("@out","").trim();
-                String dst    = row.getOrDefault("@in","").trim();
-                if (label.isEmpty() || src.isEmpty() || dst.isEmpty()) continue;
-                if (!"T".equalsIgnoreCase(dir)) continue;
+            PgdfTokenizer t = PgdfTokenizer.of(in);
+            while (t.next()) {
+                PgdfTokenizer.Header h = t.header();
+                if (t.trimLen(h.label) == 0 || t.trimLen(h.out) == 0 || t.trimLen(h.in) == 0) continue;
+                if (t.has(h.dir) && !t.trimmedEqualsIgnoreCaseAscii(h.dir, "T")) continue;
 
+                String label  = t.intern(h.label);
+                String src    = t.trimmed(h.out);
+                String dst    = t.trimmed(h.in);
+                String edgeId = t.trimmed(h.id);
                 if (edgeId.isEmpty()) edgeId = makeEdgeId(src, label, dst);
 
                 // guardar arista